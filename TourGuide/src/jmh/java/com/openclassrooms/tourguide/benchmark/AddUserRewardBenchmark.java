@@ -0,0 +1,55 @@
+package com.openclassrooms.tourguide.benchmark;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserReward;
+
+/**
+ * Ajout d'une récompense par attraction du catalogue, puis d'autant de doublons à ignorer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AddUserRewardBenchmark {
+
+	private Random random;
+	private List<Attraction> attractions;
+
+	@Setup
+	public void setUp() {
+		random = new Random(BenchmarkFixtures.SEED);
+		attractions = BenchmarkFixtures.attractions();
+	}
+
+	@Benchmark
+	public User addUserReward() {
+		User user = BenchmarkFixtures.newUser(random);
+		for (int pass = 0; pass < 2; pass++) {
+			for (Attraction attraction : attractions) {
+				VisitedLocation visitedLocation = new VisitedLocation(user.getUserId(), attraction, new Date(0));
+				user.addUserReward(new UserReward(visitedLocation, attraction, 100));
+			}
+		}
+		return user;
+	}
+}
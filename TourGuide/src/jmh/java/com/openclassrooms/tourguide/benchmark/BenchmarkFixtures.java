@@ -0,0 +1,129 @@
+package com.openclassrooms.tourguide.benchmark;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import rewardCentral.RewardCentral;
+import com.openclassrooms.tourguide.cache.ExpiringLruCache;
+import com.openclassrooms.tourguide.cache.RefreshingCache;
+import com.openclassrooms.tourguide.concurrent.DownstreamLimiter;
+import com.openclassrooms.tourguide.geo.AttractionIndex;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.helper.InternalUserSeeder;
+import com.openclassrooms.tourguide.helper.SeedingMode;
+import com.openclassrooms.tourguide.persistence.UserPersistence;
+import com.openclassrooms.tourguide.service.RewardPointsBatcher;
+import com.openclassrooms.tourguide.service.RewardPointsKey;
+import com.openclassrooms.tourguide.service.RewardPipeline;
+import com.openclassrooms.tourguide.service.RewardPointsLookup;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.tracker.TrackerSettings;
+import com.openclassrooms.tourguide.user.HistoryRetention;
+import com.openclassrooms.tourguide.user.LocationStorage;
+import com.openclassrooms.tourguide.user.User;
+
+/**
+ * Fabrique des objets partagés par les benchmarks.
+ *
+ * GpsUtil et RewardCentral sont remplacés par des bouchons sans latence ni limitation de débit,
+ * alimentés par des générateurs à graine fixe : les benchmarks mesurent le code de TourGuide
+ * et non les temps d'attente simulés des bibliothèques externes.
+ */
+final class BenchmarkFixtures {
+	static final long SEED = 42L;
+
+	private BenchmarkFixtures() {
+	}
+
+	/**
+	 * GpsUtil sans attente : positions pseudo-aléatoires déterministes.
+	 */
+	static final class StubGpsUtil extends GpsUtil {
+		private final Random random = new Random(SEED);
+
+		@Override
+		public synchronized VisitedLocation getUserLocation(UUID userId) {
+			return new VisitedLocation(userId, randomLocation(random), new Date());
+		}
+	}
+
+	/**
+	 * RewardCentral sans attente : les points dépendent uniquement du couple (attraction, utilisateur).
+	 */
+	static final class StubRewardCentral extends RewardCentral {
+
+		@Override
+		public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+			return Math.floorMod(attractionId.hashCode() ^ userId.hashCode(), 1000) + 1;
+		}
+	}
+
+	static List<Attraction> attractions() {
+		return new GpsUtil().getAttractions();
+	}
+
+	static ExecutorService executor() {
+		return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 8);
+	}
+
+	static RewardsService rewardsService(AttractionIndex attractionIndex, ExecutorService executor) {
+		RewardPointsBatcher batcher = new RewardPointsBatcher(new StubRewardCentral(),
+				new DownstreamLimiter("rewardCentral", 64), Executors.defaultThreadFactory(), 4, 32, 0, 10_000,
+				100_000);
+		RefreshingCache<RewardPointsKey, Integer> cache = new RefreshingCache<>(
+				key -> batcher.submit(key.attractionId(), key.userId()), 100_000, Duration.ofMinutes(30),
+				Duration.ofMinutes(20));
+		return new RewardsService(attractionIndex, cache, executor, new SimpleMeterRegistry());
+	}
+
+	/**
+	 * Crée un TourGuideService sans utilisateurs internes et dont le Tracker est arrêté, avec le stockage
+	 * d'historique par défaut du module.
+	 */
+	static TourGuideService tourGuideService(GpsUtil gpsUtil, AttractionIndex attractionIndex,
+			RewardsService rewardsService, ExecutorService executor) {
+		return tourGuideService(gpsUtil, attractionIndex, rewardsService, executor, LocationStorage.OBJECTS);
+	}
+
+	static TourGuideService tourGuideService(GpsUtil gpsUtil, AttractionIndex attractionIndex,
+			RewardsService rewardsService, ExecutorService executor, LocationStorage storage) {
+		InternalTestHelper.setInternalUserNumber(0);
+		RewardPipeline rewardPipeline = new RewardPipeline(rewardsService::calculateRewards,
+				Executors.defaultThreadFactory(), 2, 64, 10_000);
+		TourGuideService service = new TourGuideService(gpsUtil, attractionIndex, rewardPipeline, executor, executor,
+				new DownstreamLimiter("gpsUtil", 64), TrackerSettings.defaults(), HistoryRetention.unbounded(),
+				storage, new ExpiringLruCache<>(10_000, Duration.ofMinutes(10)),
+				new RewardPointsLookup(rewardsService, Duration.ofSeconds(2)), UserPersistence.disabled(),
+				new InternalUserSeeder(SeedingMode.EAGER, 42, 3, Instant.now()), new SimpleMeterRegistry());
+		service.tracker.stopTracking();
+		return service;
+	}
+
+	static Location randomLocation(Random random) {
+		double latitude = -85.05112878 + random.nextDouble() * 2 * 85.05112878;
+		double longitude = -180 + random.nextDouble() * 360;
+		return new Location(latitude, longitude);
+	}
+
+	static List<VisitedLocation> randomHistory(Random random, UUID userId, int length) {
+		return random.doubles(length).mapToObj(ignored -> new VisitedLocation(userId, randomLocation(random), new Date()))
+				.toList();
+	}
+
+	static User newUser(Random random) {
+		UUID userId = new UUID(random.nextLong(), random.nextLong());
+		return new User(userId, "user" + userId, "000", "user@tourGuide.com");
+	}
+}
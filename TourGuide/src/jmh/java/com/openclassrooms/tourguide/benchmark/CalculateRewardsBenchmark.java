@@ -0,0 +1,84 @@
+package com.openclassrooms.tourguide.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.geo.AttractionIndex;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.user.User;
+
+/**
+ * Calcul des récompenses d'un utilisateur selon la longueur de son historique.
+ *
+ * - fullEvaluation : premier calcul sur un utilisateur neuf, tout l'historique est examiné
+ * - incrementalTick : un emplacement est ajouté puis évalué, comme à chaque passage du Tracker ;
+ *   le coût ne doit pas dépendre de la longueur de l'historique
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalculateRewardsBenchmark {
+
+	@Param({ "10", "100", "1000" })
+	public int historyLength;
+
+	private ExecutorService executor;
+	private RewardsService rewardsService;
+	private Random random;
+	private List<VisitedLocation> history;
+	private User freshUser;
+	private User evaluatedUser;
+
+	@Setup
+	public void setUp() {
+		executor = BenchmarkFixtures.executor();
+		rewardsService = BenchmarkFixtures.rewardsService(new AttractionIndex(BenchmarkFixtures.attractions()), executor);
+		random = new Random(BenchmarkFixtures.SEED);
+		evaluatedUser = BenchmarkFixtures.newUser(random);
+		history = BenchmarkFixtures.randomHistory(random, evaluatedUser.getUserId(), historyLength);
+		history.forEach(evaluatedUser::addToVisitedLocations);
+		rewardsService.calculateRewards(evaluatedUser).join();
+	}
+
+	@Setup(Level.Invocation)
+	public void newUser() {
+		freshUser = BenchmarkFixtures.newUser(random);
+		history.forEach(freshUser::addToVisitedLocations);
+	}
+
+	@TearDown
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Benchmark
+	public void fullEvaluation() {
+		rewardsService.calculateRewards(freshUser).join();
+	}
+
+	@Benchmark
+	public void incrementalTick() {
+		evaluatedUser.addToVisitedLocations(BenchmarkFixtures.randomHistory(random, evaluatedUser.getUserId(), 1).get(0));
+		rewardsService.calculateRewards(evaluatedUser).join();
+	}
+}
@@ -0,0 +1,83 @@
+package com.openclassrooms.tourguide.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.openclassrooms.tourguide.geo.AttractionIndex;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.user.User;
+
+/**
+ * Calcul des récompenses de toute la population, chaque utilisateur ayant de nouvelles positions
+ * (scénario highVolumeGetRewards, RewardCentral sans latence).
+ *
+ * - perUser : un calcul par utilisateur, chaque position interroge l'index spatial
+ * - forAll : calcul groupé, positions jointes aux attractions cellule par cellule
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CalculateRewardsForAllBenchmark {
+
+	@Param({ "10000", "100000" })
+	public int userCount;
+
+	private ExecutorService executor;
+	private RewardsService rewardsService;
+	private Random random;
+	private List<User> users;
+
+	@Setup
+	public void setUp() {
+		executor = BenchmarkFixtures.executor();
+		rewardsService = BenchmarkFixtures.rewardsService(new AttractionIndex(BenchmarkFixtures.attractions()), executor);
+		random = new Random(BenchmarkFixtures.SEED);
+	}
+
+	@Setup(Level.Invocation)
+	public void newUsers() {
+		users = new ArrayList<>(userCount);
+		for (int i = 0; i < userCount; i++) {
+			User user = BenchmarkFixtures.newUser(random);
+			BenchmarkFixtures.randomHistory(random, user.getUserId(), 4).forEach(user::addToVisitedLocations);
+			users.add(user);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Benchmark
+	public void perUser() {
+		CompletableFuture.allOf(users.stream().map(rewardsService::calculateRewards).toArray(CompletableFuture[]::new))
+				.join();
+	}
+
+	@Benchmark
+	public void forAll() {
+		rewardsService.calculateRewardsForAll(users).join();
+	}
+}
@@ -0,0 +1,115 @@
+package com.openclassrooms.tourguide.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import com.openclassrooms.tourguide.geo.AttractionIndex;
+import com.openclassrooms.tourguide.geo.GeoDistance;
+import com.openclassrooms.tourguide.service.RewardsService;
+
+/**
+ * Coût unitaire de RewardsService.getDistance et du test de proximité pré-filtré
+ * GeoDistance.isWithin (rayon de 10 miles, comme proximityBuffer) sur des couples de points déterministes,
+ * comparés au test sur les vecteurs unitaires de AttractionIndex, pour des points isolés ou proches des attractions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DistanceBenchmark {
+	private static final int POINTS = 1024;
+
+	private ExecutorService executor;
+	private RewardsService rewardsService;
+	private AttractionIndex attractionIndex;
+	private Location[] from;
+	private Location[] to;
+	private Location[] nearby;
+	private double[][] nearbyVectors;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		executor = BenchmarkFixtures.executor();
+		attractionIndex = new AttractionIndex(BenchmarkFixtures.attractions());
+		rewardsService = BenchmarkFixtures.rewardsService(attractionIndex, executor);
+		Random random = new Random(BenchmarkFixtures.SEED);
+		from = new Location[POINTS];
+		to = new Location[POINTS];
+		for (int i = 0; i < POINTS; i++) {
+			from[i] = BenchmarkFixtures.randomLocation(random);
+			to[i] = BenchmarkFixtures.randomLocation(random);
+		}
+		nearby = new Location[POINTS];
+		nearbyVectors = new double[POINTS][];
+		for (int i = 0; i < POINTS; i++) {
+			// À moins de 0,2 degré (environ 14 miles) de l'attraction comparée
+			Attraction attraction = attractionIndex.getAttractions().get(i % attractionIndex.size());
+			nearby[i] = new Location(attraction.latitude + (random.nextDouble() - 0.5) * 0.2,
+					attraction.longitude + (random.nextDouble() - 0.5) * 0.2);
+			nearbyVectors[i] = AttractionIndex.unitVector(nearby[i]);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Benchmark
+	public double getDistance() {
+		int i = next++ & (POINTS - 1);
+		return rewardsService.getDistance(from[i], to[i]);
+	}
+
+	/**
+	 * Test de proximité à une attraction du catalogue pour un point isolé, comme isWithinAttractionProximity.
+	 */
+	@Benchmark
+	public boolean isWithinAttraction() {
+		int i = next++ & (POINTS - 1);
+		return attractionIndex.isWithin(i % attractionIndex.size(), to[i], 10);
+	}
+
+	/**
+	 * Cas du calcul groupé : positions proches de l'attraction, donc non écartées par le pré-filtre,
+	 * comparées par la formule complète.
+	 */
+	@Benchmark
+	public boolean isWithinNearbyFullFormula() {
+		int i = next++ & (POINTS - 1);
+		return GeoDistance.isWithin(attractionIndex.getAttractions().get(i % attractionIndex.size()), nearby[i], 10);
+	}
+
+	/**
+	 * Mêmes positions, projetées une seule fois en amont comme dans le calcul groupé.
+	 */
+	@Benchmark
+	public boolean isWithinNearbyUnitVector() {
+		int i = next++ & (POINTS - 1);
+		return attractionIndex.isWithin(i % attractionIndex.size(), nearbyVectors[i], 10);
+	}
+
+	@Benchmark
+	public boolean isWithinProximityBuffer() {
+		int i = next++ & (POINTS - 1);
+		return GeoDistance.isWithin(from[i], to[i], 10);
+	}
+}
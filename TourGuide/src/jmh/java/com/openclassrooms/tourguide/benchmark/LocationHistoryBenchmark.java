@@ -0,0 +1,66 @@
+package com.openclassrooms.tourguide.benchmark;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.user.HistoryRetention;
+import com.openclassrooms.tourguide.user.LocationStorage;
+import com.openclassrooms.tourguide.user.User;
+
+/**
+ * Ajout d'une position et lecture de la dernière position sur un historique de taille donnée,
+ * pour chaque mode de stockage. Le coût ne doit pas croître avec {@code historyLength}.
+ * En mode COLUMNAR, l'allocation mesurée inclut la VisitedLocation recréée à la lecture ;
+ * le gain porte sur la mémoire retenue par l'historique, pas sur cette allocation éphémère.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocationHistoryBenchmark {
+
+	@Param({ "100", "10000" })
+	private int historyLength;
+
+	@Param({ "OBJECTS", "COLUMNAR" })
+	private LocationStorage storage;
+
+	private User user;
+	private List<VisitedLocation> newLocations;
+	private int next;
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		Random random = new Random(BenchmarkFixtures.SEED);
+		user = BenchmarkFixtures.newUser(random);
+		user.getLocationHistory().setStorage(storage);
+		// L'historique reste à sa taille nominale malgré les ajouts mesurés
+		user.getLocationHistory().setRetention(new HistoryRetention(historyLength, Duration.ZERO, Duration.ZERO, 1));
+		BenchmarkFixtures.randomHistory(random, user.getUserId(), historyLength).forEach(user::addToVisitedLocations);
+		newLocations = BenchmarkFixtures.randomHistory(random, user.getUserId(), 1024);
+	}
+
+	@Benchmark
+	public VisitedLocation appendAndReadLast() {
+		user.addToVisitedLocations(newLocations.get(next++ & 1023));
+		return user.getLastVisitedLocation();
+	}
+}
@@ -0,0 +1,68 @@
+package com.openclassrooms.tourguide.benchmark;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.geo.AttractionIndex;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+
+/**
+ * Recherche des 5 attractions les plus proches d'une position.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NearbyAttractionsBenchmark {
+	private static final int POINTS = 1024;
+
+	private ExecutorService executor;
+	private TourGuideService tourGuideService;
+	private VisitedLocation[] locations;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		executor = BenchmarkFixtures.executor();
+		AttractionIndex attractionIndex = new AttractionIndex(BenchmarkFixtures.attractions());
+		RewardsService rewardsService = BenchmarkFixtures.rewardsService(attractionIndex, executor);
+		tourGuideService = BenchmarkFixtures.tourGuideService(new BenchmarkFixtures.StubGpsUtil(), attractionIndex,
+				rewardsService, executor);
+		Random random = new Random(BenchmarkFixtures.SEED);
+		locations = new VisitedLocation[POINTS];
+		for (int i = 0; i < POINTS; i++) {
+			locations[i] = new VisitedLocation(UUID.randomUUID(), BenchmarkFixtures.randomLocation(random), new Date());
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Benchmark
+	public List<Attraction> getNearByAttractions() {
+		return tourGuideService.getNearByAttractions(locations[next++ & (POINTS - 1)]);
+	}
+}
@@ -0,0 +1,72 @@
+package com.openclassrooms.tourguide.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.geo.AttractionIndex;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.user.LocationStorage;
+import com.openclassrooms.tourguide.user.User;
+
+/**
+ * Chaîne complète trackUserLocation (position GPS puis calcul des récompenses) avec bouchons sans latence :
+ * mesure le coût propre de l'ordonnancement et du traitement, hors attente des services externes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrackUserLocationBenchmark {
+	private static final int USERS = 1024;
+
+	@Param({ "OBJECTS", "COLUMNAR" })
+	private LocationStorage storage;
+
+	private ExecutorService executor;
+	private TourGuideService tourGuideService;
+	private User[] users;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		executor = BenchmarkFixtures.executor();
+		AttractionIndex attractionIndex = new AttractionIndex(BenchmarkFixtures.attractions());
+		RewardsService rewardsService = BenchmarkFixtures.rewardsService(attractionIndex, executor);
+		tourGuideService = BenchmarkFixtures.tourGuideService(new BenchmarkFixtures.StubGpsUtil(), attractionIndex,
+				rewardsService, executor, storage);
+		Random random = new Random(BenchmarkFixtures.SEED);
+		users = new User[USERS];
+		for (int i = 0; i < USERS; i++) {
+			users[i] = BenchmarkFixtures.newUser(random);
+			tourGuideService.addUser(users[i]);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Benchmark
+	public VisitedLocation trackUserLocation() {
+		return tourGuideService.trackUserLocation(users[next++ & (USERS - 1)]).join();
+	}
+}
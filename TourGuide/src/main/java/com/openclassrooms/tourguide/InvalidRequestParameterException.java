@@ -0,0 +1,13 @@
+package com.openclassrooms.tourguide;
+
+/**
+ * Paramètre de requête hors des valeurs acceptées : traduite en 400 par {@link TourGuideController}.
+ * Seules les vérifications faites sur les paramètres reçus la lèvent ; une autre exception levée
+ * par les services reste une erreur interne.
+ */
+public class InvalidRequestParameterException extends RuntimeException {
+
+	public InvalidRequestParameterException(String message) {
+		super(message);
+	}
+}
@@ -1,16 +1,29 @@
 package com.openclassrooms.tourguide;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.openclassrooms.tourguide.dto.NearbyAttractionDTO;
 import com.openclassrooms.tourguide.service.RewardsService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import gpsUtil.location.Attraction;
 import gpsUtil.location.VisitedLocation;
@@ -29,31 +42,55 @@ public class TourGuideController {
 
     @Autowired
     RewardsService rewardsService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Value("${tourguide.nearby.max-count:50}")
+    int maxNearbyCount;
 	
     @RequestMapping("/")
     public String index() {
         return "Greetings from TourGuide!";
     }
     
+    /**
+     * Les points d'entrée qui appellent gpsUtil, RewardCentral ou TripPricer renvoient un
+     * CompletableFuture : Spring MVC traite la requête en mode asynchrone et libère le thread
+     * Tomcat pendant les appels externes. La réponse est écrite à la complétion du future.
+     */
     @RequestMapping("/getLocation") 
-    public VisitedLocation getLocation(@RequestParam String userName) {
-    	return tourGuideService.getUserLocation(getUser(userName));
+    public CompletableFuture<VisitedLocation> getLocation(@RequestParam String userName) {
+    	return tourGuideService.getUserLocationAsync(getUser(userName));
     }
     
     /**
-     * Point d'entrée API pour récupérer les 5 attractions les plus proches d'un utilisateur.
+     * Point d'entrée API pour récupérer les attractions les plus proches d'un utilisateur.
      * Renvoie les informations détaillées sur chaque attraction
      *
      * @param userName Nom de l'utilisateur
+     * @param count Nombre maximal d'attractions (5 par défaut, au plus tourguide.nearby.max-count)
+     * @param radius Rayon de recherche en miles (par défaut celui des préférences de l'utilisateur)
      * @return Liste de DTOs contenant les détails de chaque attraction
      */
     @RequestMapping("/getNearbyAttractions")
-    public List<NearbyAttractionDTO> getNearbyAttractions(@RequestParam String userName) {
+    public CompletableFuture<List<NearbyAttractionDTO>> getNearbyAttractions(@RequestParam String userName,
+            @RequestParam(required = false) Integer count, @RequestParam(required = false) Double radius) {
         // Récupérer l'utilisateur
         User user = getUser(userName);
 
+        int attractionCount = count != null ? count : TourGuideService.DEFAULT_NEARBY_ATTRACTIONS;
+        if (attractionCount < 1 || attractionCount > maxNearbyCount) {
+            throw new InvalidRequestParameterException(
+                    "Le nombre d'attractions doit être compris entre 1 et " + maxNearbyCount + " : " + attractionCount);
+        }
+        double radiusMiles = radius != null ? radius : user.getUserPreferences().getAttractionProximity();
+        if (!(radiusMiles >= 0)) {
+            throw new InvalidRequestParameterException("Le rayon de recherche doit être positif : " + radiusMiles);
+        }
+
         // Appeler la méthode du service qui encapsule toute la logique métier
-        return tourGuideService.getNearbyAttractionsWithDetails(user);
+        return tourGuideService.getNearbyAttractionsWithDetailsAsync(user, attractionCount, radiusMiles);
     }
     
     @RequestMapping("/getRewards") 
@@ -62,12 +99,78 @@ public class TourGuideController {
     }
        
     @RequestMapping("/getTripDeals")
-    public List<Provider> getTripDeals(@RequestParam String userName) {
-    	return tourGuideService.getTripDeals(getUser(userName));
+    public CompletableFuture<List<Provider>> getTripDeals(@RequestParam String userName) {
+    	return tourGuideService.getTripDealsAsync(getUser(userName));
     }
     
+    /**
+     * Dernière position connue de chaque utilisateur, au format NDJSON : une ligne
+     * {"userId":…,"location":{"longitude":…,"latitude":…}} par utilisateur.
+     *
+     * Les lignes sont écrites au fil du parcours du registre : aucune liste n'est construite en
+     * mémoire et les premiers octets partent dès que le tampon de sortie est plein, quel que soit
+     * le nombre d'utilisateurs. Aucune position n'est demandée à gpsUtil : les utilisateurs sans
+     * position connue sont absents de la réponse.
+     */
+    @RequestMapping("/getAllCurrentLocations")
+    public ResponseEntity<StreamingResponseBody> getAllCurrentLocations() {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                // Le flux de la réponse reste géré par Spring ; une ligne par utilisateur
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                tourGuideService.forEachCurrentLocation((userId, location) -> {
+                    try {
+                        generator.writeStartObject();
+                        generator.writeStringField("userId", userId.toString());
+                        generator.writeObjectFieldStart("location");
+                        generator.writeNumberField("longitude", location.longitude);
+                        generator.writeNumberField("latitude", location.latitude);
+                        generator.writeEndObject();
+                        generator.writeEndObject();
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Pool des requêtes interactives saturé : la requête est refusée immédiatement, le client peut réessayer.
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public String handleSaturation(RejectedExecutionException e) {
+        return e.getMessage();
+    }
+
+    /**
+     * Paramètre de requête invalide (nombre d'attractions, rayon).
+     */
+    @ExceptionHandler(InvalidRequestParameterException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String handleInvalidParameter(InvalidRequestParameterException e) {
+        return e.getMessage();
+    }
+
+    @ExceptionHandler(UserNotFoundException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public String handleUserNotFound(UserNotFoundException e) {
+        return e.getMessage();
+    }
+
+    /**
+     * @throws UserNotFoundException si aucun utilisateur ne porte ce nom
+     */
     private User getUser(String userName) {
-    	return tourGuideService.getUser(userName);
+    	User user = tourGuideService.getUser(userName);
+    	if (user == null) {
+    		throw new UserNotFoundException(userName);
+    	}
+    	return user;
     }
    
 
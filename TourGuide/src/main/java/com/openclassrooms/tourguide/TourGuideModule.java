@@ -1,27 +1,150 @@
 package com.openclassrooms.tourguide;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import gpsUtil.GpsUtil;
 import rewardCentral.RewardCentral;
+import tripPricer.Provider;
+import com.openclassrooms.tourguide.cache.ExpiringLruCache;
+import com.openclassrooms.tourguide.cache.RefreshingCache;
+import com.openclassrooms.tourguide.concurrent.Bulkhead;
+import com.openclassrooms.tourguide.concurrent.DownstreamLimiter;
+import com.openclassrooms.tourguide.concurrent.ExecutionMode;
+import com.openclassrooms.tourguide.concurrent.OverflowPolicy;
+import com.openclassrooms.tourguide.geo.AttractionIndex;
+import com.openclassrooms.tourguide.helper.InternalUserSeeder;
+import com.openclassrooms.tourguide.helper.SeedingMode;
+import com.openclassrooms.tourguide.metrics.TourGuideMeterBinder;
+import com.openclassrooms.tourguide.persistence.FileUserRepository;
+import com.openclassrooms.tourguide.persistence.UserPersistence;
+import com.openclassrooms.tourguide.service.RewardPointsBatcher;
+import com.openclassrooms.tourguide.service.RewardPointsKey;
+import com.openclassrooms.tourguide.service.RewardPipeline;
+import com.openclassrooms.tourguide.service.RewardPointsLookup;
 import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.service.TripQuoteKey;
+import com.openclassrooms.tourguide.tracker.TrackerSettings;
+import com.openclassrooms.tourguide.user.HistoryRetention;
+import com.openclassrooms.tourguide.user.LocationStorage;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Configuration
 public class TourGuideModule {
-	
+	private final Logger logger = LoggerFactory.getLogger(TourGuideModule.class);
+
+	/**
+	 * Mode d'exécution effectif : VIRTUAL n'est retenu que si le JDK fournit les threads virtuels.
+	 */
+	@Bean
+	public ExecutionMode getExecutionMode(@Value("${tourguide.execution.mode:platform}") String mode) {
+		ExecutionMode requested = ExecutionMode.fromProperty(mode);
+		if (requested == ExecutionMode.VIRTUAL && !ExecutionMode.virtualThreadsSupported()) {
+			logger.warn("Threads virtuels indisponibles sur Java " + Runtime.version().feature()
+					+ ", utilisation du pool fixe");
+			return ExecutionMode.PLATFORM;
+		}
+		logger.info("Mode d'exécution : " + requested);
+		return requested;
+	}
+
 	@Bean
 	public GpsUtil getGpsUtil() {
 		return new GpsUtil();
 	}
 
+	/**
+	 * Index spatial construit une seule fois à partir du catalogue d'attractions.
+	 * Partagé par RewardsService et TourGuideService pour éviter de rappeler
+	 * gpsUtil.getAttractions() et de parcourir tout le catalogue à chaque requête.
+	 */
+	@Bean
+	public AttractionIndex getAttractionIndex(GpsUtil gpsUtil) {
+		return new AttractionIndex(gpsUtil.getAttractions());
+	}
+
+	/**
+	 * Pool des suivis de position (appels gpsUtil), alimenté surtout par le Tracker.
+	 * File pleine : par défaut, le thread qui soumet exécute le suivi lui-même, ce qui freine la rafale.
+	 * Une taille à 0 reprend le dimensionnement historique (cœurs * 8) en mode PLATFORM, et la
+	 * concurrence autorisée vers gpsUtil en mode VIRTUAL.
+	 */
+	@Bean
+	public Bulkhead gpsExecutor(ExecutionMode executionMode, @Qualifier("gpsLimiter") DownstreamLimiter gpsLimiter,
+			@Value("${tourguide.bulkhead.gps.threads:0}") int threads,
+			@Value("${tourguide.bulkhead.gps.queue-capacity:1000}") int queueCapacity,
+			@Value("${tourguide.bulkhead.gps.overflow-policy:caller-runs}") String overflowPolicy) {
+		int defaultThreads = executionMode == ExecutionMode.VIRTUAL ? gpsLimiter.getMaxConcurrency()
+				: Runtime.getRuntime().availableProcessors() * 8;
+		return newBulkhead("gps", executionMode, threads > 0 ? threads : defaultThreads, queueCapacity,
+				overflowPolicy);
+	}
+
+	/**
+	 * Pool des évaluations de récompenses : calcul en mémoire, les points sont demandés à
+	 * RewardCentral sans bloquer ces threads.
+	 */
+	@Bean
+	public Bulkhead rewardsExecutor(ExecutionMode executionMode,
+			@Value("${tourguide.bulkhead.rewards.threads:0}") int threads,
+			@Value("${tourguide.bulkhead.rewards.queue-capacity:10000}") int queueCapacity,
+			@Value("${tourguide.bulkhead.rewards.overflow-policy:caller-runs}") String overflowPolicy) {
+		int defaultThreads = Runtime.getRuntime().availableProcessors() * 2;
+		return newBulkhead("rewards", executionMode, threads > 0 ? threads : defaultThreads, queueCapacity,
+				overflowPolicy);
+	}
+
+	/**
+	 * Pool réservé aux requêtes interactives (/getLocation sans position connue, /getTripDeals) :
+	 * il reste disponible pendant une rafale du Tracker. File pleine : par défaut, la requête est
+	 * refusée (503) plutôt que de mettre en attente le thread Tomcat.
+	 */
+	@Bean
+	public Bulkhead httpExecutor(ExecutionMode executionMode,
+			@Value("${tourguide.bulkhead.http.threads:0}") int threads,
+			@Value("${tourguide.bulkhead.http.queue-capacity:200}") int queueCapacity,
+			@Value("${tourguide.bulkhead.http.overflow-policy:reject}") String overflowPolicy) {
+		int defaultThreads = Runtime.getRuntime().availableProcessors() * 4;
+		return newBulkhead("http", executionMode, threads > 0 ? threads : defaultThreads, queueCapacity,
+				overflowPolicy);
+	}
+
+	private Bulkhead newBulkhead(String name, ExecutionMode executionMode, int threads, int queueCapacity,
+			String overflowPolicy) {
+		ThreadFactory threadFactory;
+		if (executionMode == ExecutionMode.VIRTUAL) {
+			threadFactory = ExecutionMode.virtualThreadFactory(name + "-").orElseThrow();
+		} else {
+			AtomicInteger threadNumber = new AtomicInteger();
+			threadFactory = task -> new Thread(task, name + "-" + threadNumber.getAndIncrement());
+		}
+		logger.info("Bulkhead " + name + " : " + threads + " threads, file de " + queueCapacity);
+		return new Bulkhead(name, threads, queueCapacity, OverflowPolicy.fromProperty(overflowPolicy), threadFactory);
+	}
+
+	@Bean
+	public DownstreamLimiter gpsLimiter(@Value("${tourguide.downstream.gps.max-concurrency:200}") int maxConcurrency) {
+		return new DownstreamLimiter("gpsUtil", maxConcurrency);
+	}
+
 	@Bean
-	public ExecutorService getExecutorService() {
-		// Utilise la même configuration pour TourGuideService et RewardsService
-		return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 8);
+	public DownstreamLimiter rewardCentralLimiter(
+			@Value("${tourguide.downstream.reward-central.max-concurrency:200}") int maxConcurrency) {
+		return new DownstreamLimiter("rewardCentral", maxConcurrency);
 	}
 
 	/**
@@ -39,10 +162,163 @@ public class TourGuideModule {
 	 * - Facilite la maintenance et les tests.
 	 */
 	@Bean
-	public RewardsService getRewardsService(GpsUtil gpsUtil, RewardCentral rewardCentral, ExecutorService executorService) {
-		return new RewardsService(gpsUtil, rewardCentral, executorService);
+	public RewardsService getRewardsService(AttractionIndex attractionIndex,
+			RefreshingCache<RewardPointsKey, Integer> rewardPointsCache,
+			@Qualifier("rewardsExecutor") ExecutorService rewardsExecutor, MeterRegistry meterRegistry) {
+		return new RewardsService(attractionIndex, rewardPointsCache, rewardsExecutor, meterRegistry);
+	}
+
+	/**
+	 * Étage des récompenses alimenté par les suivis de position. Les workers ne font que lancer les
+	 * calculs : quelques-uns suffisent. Un nombre de calculs simultanés à 0 reprend la concurrence
+	 * autorisée vers RewardCentral.
+	 */
+	@Bean
+	public RewardPipeline getRewardPipeline(RewardsService rewardsService, ExecutionMode executionMode,
+			@Qualifier("rewardCentralLimiter") DownstreamLimiter rewardCentralLimiter,
+			@Value("${tourguide.rewards.pipeline.workers:2}") int workers,
+			@Value("${tourguide.rewards.pipeline.max-in-flight:0}") int maxInFlight,
+			@Value("${tourguide.rewards.pipeline.queue-capacity:100000}") int queueCapacity) {
+		ThreadFactory workerFactory;
+		if (executionMode == ExecutionMode.VIRTUAL) {
+			workerFactory = ExecutionMode.virtualThreadFactory("reward-worker-").orElseThrow();
+		} else {
+			AtomicInteger workerNumber = new AtomicInteger();
+			workerFactory = task -> new Thread(task, "reward-worker-" + workerNumber.getAndIncrement());
+		}
+		int inFlightLimit = maxInFlight > 0 ? maxInFlight : rewardCentralLimiter.getMaxConcurrency();
+		logger.info("Étage des récompenses : " + workers + " workers, " + inFlightLimit
+				+ " calculs simultanés, file de " + queueCapacity);
+		return new RewardPipeline(rewardsService::calculateRewards, workerFactory, workers, inFlightLimit,
+				queueCapacity);
+	}
+
+	/**
+	 * Cache des points de récompense par couple (attraction, utilisateur) : un couple demandé
+	 * simultanément par plusieurs requêtes n'est chargé qu'une fois via le RewardPointsBatcher,
+	 * puis rafraîchi en arrière-plan après refresh-after.
+	 */
+	@Bean
+	public RefreshingCache<RewardPointsKey, Integer> getRewardPointsCache(RewardPointsBatcher rewardPointsBatcher,
+			@Value("${tourguide.rewards.cache.max-entries:100000}") int maxEntries,
+			@Value("${tourguide.rewards.cache.expire-after:30m}") Duration expireAfter,
+			@Value("${tourguide.rewards.cache.refresh-after:20m}") Duration refreshAfter) {
+		return new RefreshingCache<>(key -> rewardPointsBatcher.submit(key.attractionId(), key.userId()), maxEntries,
+				expireAfter, refreshAfter);
+	}
+
+	/**
+	 * Regroupe les appels à RewardCentral sur un nombre fixe de voies, avec une fenêtre et une
+	 * file d'attente bornées.
+	 * Une valeur de voies à 0 reprend le dimensionnement historique du pool (cœurs * 8) en mode
+	 * PLATFORM, et la concurrence autorisée vers RewardCentral en mode VIRTUAL.
+	 */
+	@Bean
+	public RewardPointsBatcher getRewardPointsBatcher(RewardCentral rewardCentral, ExecutionMode executionMode,
+			@Qualifier("rewardCentralLimiter") DownstreamLimiter rewardCentralLimiter,
+			@Value("${tourguide.rewards.batch.lanes:0}") int lanes,
+			@Value("${tourguide.rewards.batch.max-size:32}") int maxBatchSize,
+			@Value("${tourguide.rewards.batch.linger-ms:0}") long lingerMillis,
+			@Value("${tourguide.rewards.batch.max-in-flight:10000}") int maxInFlight,
+			@Value("${tourguide.rewards.batch.max-waiting:100000}") int maxWaiting) {
+		ThreadFactory laneFactory;
+		int laneCount;
+		if (executionMode == ExecutionMode.VIRTUAL) {
+			laneFactory = ExecutionMode.virtualThreadFactory("reward-lane-").orElseThrow();
+			laneCount = lanes > 0 ? lanes : rewardCentralLimiter.getMaxConcurrency();
+		} else {
+			AtomicInteger laneNumber = new AtomicInteger();
+			laneFactory = task -> new Thread(task, "reward-lane-" + laneNumber.getAndIncrement());
+			laneCount = lanes > 0 ? lanes : Runtime.getRuntime().availableProcessors() * 8;
+		}
+		return new RewardPointsBatcher(rewardCentral, rewardCentralLimiter, laneFactory, laneCount, maxBatchSize,
+				lingerMillis, maxInFlight, maxWaiting);
 	}
 	
+	/**
+	 * Paramètres du Tracker : roue temporelle et cadences de suivi.
+	 */
+	@Bean
+	public TrackerSettings getTrackerSettings(
+			@Value("${tourguide.tracker.polling-interval:5m}") Duration pollingInterval,
+			@Value("${tourguide.tracker.wheel-slots:60}") int wheelSlots,
+			@Value("${tourguide.tracker.active-interval:1m}") Duration activeInterval,
+			@Value("${tourguide.tracker.movement-threshold-miles:0.5}") double movementThresholdMiles) {
+		return new TrackerSettings(pollingInterval, wheelSlots, activeInterval, movementThresholdMiles);
+	}
+
+	/**
+	 * Rétention de l'historique des positions, désactivée par défaut : tout l'historique est conservé.
+	 */
+	@Bean
+	public HistoryRetention getHistoryRetention(
+			@Value("${tourguide.history.max-locations:0}") int maxLocations,
+			@Value("${tourguide.history.max-age:0}") Duration maxAge,
+			@Value("${tourguide.history.downsample-after:0}") Duration downsampleAfter,
+			@Value("${tourguide.history.downsample-stride:1}") int downsampleStride) {
+		return new HistoryRetention(maxLocations, maxAge, downsampleAfter, downsampleStride);
+	}
+
+	/**
+	 * Représentation mémoire de l'historique : objets par défaut, colonnes de types primitifs sur option.
+	 */
+	@Bean
+	public LocationStorage getLocationStorage(@Value("${tourguide.history.storage:objects}") String storage) {
+		return LocationStorage.fromProperty(storage);
+	}
+
+	@Bean
+	public ExpiringLruCache<TripQuoteKey, List<Provider>> getTripDealsCache(
+			@Value("${tourguide.trip-deals.cache.max-entries:10000}") int maxEntries,
+			@Value("${tourguide.trip-deals.cache.ttl:10m}") Duration timeToLive) {
+		return new ExpiringLruCache<>(maxEntries, timeToLive);
+	}
+
+	@Bean
+	public RewardPointsLookup getRewardPointsLookup(RewardsService rewardsService,
+			@Value("${tourguide.nearby.reward-points.timeout:1500ms}") Duration timeout) {
+		return new RewardPointsLookup(rewardsService, timeout);
+	}
+
+	/**
+	 * Persistance des utilisateurs dans le répertoire configuré, désactivée par défaut : les
+	 * utilisateurs internes sont alors régénérés à chaque démarrage, comme auparavant.
+	 */
+	@Bean
+	public UserPersistence getUserPersistence(@Value("${tourguide.persistence.enabled:false}") boolean enabled,
+			@Value("${tourguide.persistence.directory:data}") String directory,
+			@Value("${tourguide.persistence.queue-capacity:100000}") int queueCapacity,
+			@Value("${tourguide.persistence.max-batch-size:1000}") int maxBatchSize,
+			@Value("${tourguide.persistence.snapshot-interval:10m}") Duration snapshotInterval) throws IOException {
+		if (!enabled) {
+			return UserPersistence.disabled();
+		}
+		logger.info("Persistance des utilisateurs dans " + Path.of(directory).toAbsolutePath());
+		return new UserPersistence(new FileUserRepository(Path.of(directory)), queueCapacity, maxBatchSize,
+				snapshotInterval);
+	}
+
+	/**
+	 * Création des utilisateurs internes. Les positions sont datées par rapport au démarrage ;
+	 * à graine égale, identifiants, noms et coordonnées sont identiques d'un démarrage à l'autre.
+	 */
+	@Bean
+	public InternalUserSeeder getInternalUserSeeder(@Value("${tourguide.seeding.mode:eager}") String mode,
+			@Value("${tourguide.seeding.seed:42}") long seed,
+			@Value("${tourguide.seeding.history-length:3}") int historyLength) {
+		return new InternalUserSeeder(SeedingMode.fromProperty(mode), seed, historyLength, Instant.now());
+	}
+
+	/**
+	 * Jauges exposées par l'actuator (/actuator/metrics, /actuator/prometheus) : Spring Boot
+	 * enregistre automatiquement les MeterBinder déclarés comme beans.
+	 */
+	@Bean
+	public TourGuideMeterBinder getTourGuideMeterBinder(TourGuideService tourGuideService, List<Bulkhead> bulkheads,
+			RewardPipeline rewardPipeline, UserPersistence userPersistence) {
+		return new TourGuideMeterBinder(tourGuideService, bulkheads, rewardPipeline, userPersistence);
+	}
+
 	@Bean
 	public RewardCentral getRewardCentral() {
 		return new RewardCentral();
@@ -0,0 +1,11 @@
+package com.openclassrooms.tourguide;
+
+/**
+ * Aucun utilisateur ne porte le nom demandé : traduite en 404 par {@link TourGuideController}.
+ */
+public class UserNotFoundException extends RuntimeException {
+
+	public UserNotFoundException(String userName) {
+		super("Utilisateur inconnu : " + userName);
+	}
+}
@@ -0,0 +1,20 @@
+package com.openclassrooms.tourguide.cache;
+
+/**
+ * Compteurs d'un cache depuis sa création.
+ *
+ * @param hits lectures servies par le cache
+ * @param misses lectures ayant nécessité un chargement
+ * @param evictions entrées retirées par manque de place ou expiration
+ * @param size nombre d'entrées présentes
+ */
+public record CacheStats(long hits, long misses, long evictions, int size) {
+
+	/**
+	 * @return la proportion de lectures servies par le cache, 0 si aucune lecture
+	 */
+	public double hitRatio() {
+		long requests = hits + misses;
+		return requests == 0 ? 0 : (double) hits / requests;
+	}
+}
@@ -0,0 +1,94 @@
+package com.openclassrooms.tourguide.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache borné en taille avec expiration.
+ *
+ * - Éviction LRU : au-delà de {@code maxEntries}, l'entrée la moins récemment lue est retirée
+ * - Expiration : une entrée plus ancienne que {@code timeToLive} n'est plus servie ; elle est retirée
+ *   à sa prochaine lecture ou évincée par l'ordre LRU
+ * - Compteurs de hits, misses et évictions consultables via {@link #stats()}
+ *
+ * Le chargement d'une valeur absente se fait hors verrou : un chargement lent ne bloque pas
+ * les lectures des autres clés. Deux lectures simultanées d'une même clé absente peuvent
+ * toutes deux déclencher un chargement ; la dernière valeur chargée est conservée.
+ */
+public class ExpiringLruCache<K, V> {
+	private final int maxEntries;
+	private final long timeToLiveNanos;
+	private final LongSupplier nanoClock;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LinkedHashMap<K, Entry<V>> entries;
+
+	public ExpiringLruCache(int maxEntries, Duration timeToLive) {
+		this(maxEntries, timeToLive, System::nanoTime);
+	}
+
+	/**
+	 * @param nanoClock source de temps en nanosecondes, remplaçable dans les tests
+	 */
+	public ExpiringLruCache(int maxEntries, Duration timeToLive, LongSupplier nanoClock) {
+		if (maxEntries <= 0 || timeToLive.isNegative() || timeToLive.isZero()) {
+			throw new IllegalArgumentException("Taille maximale et durée de vie du cache doivent être positives");
+		}
+		this.maxEntries = maxEntries;
+		this.timeToLiveNanos = timeToLive.toNanos();
+		this.nanoClock = nanoClock;
+		// Ordre d'accès : l'entrée la plus ancienne est la moins récemment lue
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+				if (size() > ExpiringLruCache.this.maxEntries) {
+					evictions.increment();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Retourne la valeur en cache pour la clé, ou la charge si elle est absente ou expirée.
+	 */
+	public V get(K key, Function<? super K, ? extends V> loader) {
+		synchronized (entries) {
+			Entry<V> entry = entries.get(key);
+			if (entry != null) {
+				if (!entry.isExpired(nanoClock.getAsLong())) {
+					hits.increment();
+					return entry.value();
+				}
+				entries.remove(key);
+				evictions.increment();
+			}
+		}
+		misses.increment();
+		V value = loader.apply(key);
+		synchronized (entries) {
+			entries.put(key, new Entry<>(value, nanoClock.getAsLong() + timeToLiveNanos));
+		}
+		return value;
+	}
+
+	public CacheStats stats() {
+		int size;
+		synchronized (entries) {
+			size = entries.size();
+		}
+		return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size);
+	}
+
+	private record Entry<V>(V value, long expiresAtNanos) {
+		boolean isExpired(long now) {
+			return now - expiresAtNanos >= 0;
+		}
+	}
+}
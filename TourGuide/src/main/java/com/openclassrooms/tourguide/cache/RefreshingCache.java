@@ -0,0 +1,219 @@
+package com.openclassrooms.tourguide.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache asynchrone de valeurs coûteuses à obtenir, chargées par un service externe lent.
+ *
+ * - Protection contre les rafales : pour une clé absente, un seul chargement est lancé et son
+ *   CompletableFuture est partagé par tous les appelants arrivés pendant le chargement
+ * - Expiration : une valeur plus ancienne que {@code expireAfter} n'est plus servie
+ * - Rafraîchissement asynchrone : passé {@code refreshAfter}, la valeur en cache est encore
+ *   servie et un seul rechargement est lancé en arrière-plan ; en cas d'échec, l'ancienne valeur
+ *   reste servie jusqu'à son expiration
+ * - Taille bornée : au-delà de {@code maxEntries}, les entrées les plus anciennement chargées
+ *   sont retirées
+ * - Un chargement en échec n'est pas conservé : l'appel suivant relance le chargement
+ *
+ * Les lectures d'une valeur présente ne prennent aucun verrou. Les modifications (chargement,
+ * rafraîchissement, retrait) sont faites sous un même verrou, qui garde l'ordre d'insertion
+ * cohérent avec les entrées : une clé n'y figure qu'une fois, et seulement tant que son entrée existe.
+ *
+ * Chaque appelant reçoit sa propre copie du future partagé.
+ */
+public class RefreshingCache<K, V> {
+	private final Function<? super K, CompletableFuture<V>> loader;
+	private final int maxEntries;
+	private final long expireAfterNanos;
+	private final long refreshAfterNanos;
+	private final LongSupplier nanoClock;
+	private final ConcurrentMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+	// Clés des entrées, de la plus anciennement chargée à la plus récente ; gardé par lock
+	private final LinkedHashSet<K> insertionOrder = new LinkedHashSet<>();
+	private final Object lock = new Object();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder refreshes = new LongAdder();
+	private final LongAdder loadFailures = new LongAdder();
+
+	public RefreshingCache(Function<? super K, CompletableFuture<V>> loader, int maxEntries, Duration expireAfter,
+			Duration refreshAfter) {
+		this(loader, maxEntries, expireAfter, refreshAfter, System::nanoTime);
+	}
+
+	/**
+	 * @param nanoClock source de temps en nanosecondes, remplaçable dans les tests
+	 */
+	public RefreshingCache(Function<? super K, CompletableFuture<V>> loader, int maxEntries, Duration expireAfter,
+			Duration refreshAfter, LongSupplier nanoClock) {
+		if (maxEntries <= 0 || expireAfter.isNegative() || expireAfter.isZero() || refreshAfter.isNegative()
+				|| refreshAfter.compareTo(expireAfter) > 0) {
+			throw new IllegalArgumentException("Configuration du cache invalide : taille et expiration positives, refreshAfter <= expireAfter");
+		}
+		this.loader = loader;
+		this.maxEntries = maxEntries;
+		this.expireAfterNanos = expireAfter.toNanos();
+		this.refreshAfterNanos = refreshAfter.isZero() ? expireAfterNanos : refreshAfter.toNanos();
+		this.nanoClock = nanoClock;
+	}
+
+	/**
+	 * @return la valeur en cache, le chargement en cours pour cette clé, ou un nouveau chargement
+	 */
+	public CompletableFuture<V> get(K key) {
+		long now = nanoClock.getAsLong();
+		Entry<V> entry = entries.get(key);
+		if (entry != null && !entry.isExpired(now, expireAfterNanos)) {
+			hits.increment();
+			refreshIfStale(key, entry, now);
+			return entry.value.copy();
+		}
+
+		Entry<V> created;
+		synchronized (lock) {
+			Entry<V> existing = entries.get(key);
+			if (existing != null && !existing.isExpired(now, expireAfterNanos)) {
+				// Un autre appelant vient d'installer le chargement : il est partagé
+				hits.increment();
+				return existing.value.copy();
+			}
+			if (existing != null) {
+				evictions.increment();
+			}
+			created = new Entry<>(new CompletableFuture<>(), now);
+			entries.put(key, created);
+			moveToNewest(key);
+			evictOverflow();
+		}
+
+		misses.increment();
+		load(key, created);
+		return created.value.copy();
+	}
+
+	public void invalidateAll() {
+		synchronized (lock) {
+			entries.clear();
+			insertionOrder.clear();
+		}
+	}
+
+	public CacheStats stats() {
+		return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+	}
+
+	/**
+	 * @return le nombre de rafraîchissements lancés en arrière-plan
+	 */
+	public long getRefreshCount() {
+		return refreshes.sum();
+	}
+
+	/**
+	 * @return le nombre de chargements ou rafraîchissements en échec
+	 */
+	public long getLoadFailureCount() {
+		return loadFailures.sum();
+	}
+
+	/**
+	 * @return le nombre de clés suivies pour l'ordre d'éviction, égal au nombre d'entrées
+	 */
+	public int getTrackedKeyCount() {
+		synchronized (lock) {
+			return insertionOrder.size();
+		}
+	}
+
+	private void load(K key, Entry<V> entry) {
+		CompletableFuture<V> loading;
+		try {
+			loading = loader.apply(key);
+		} catch (RuntimeException e) {
+			loading = CompletableFuture.failedFuture(e);
+		}
+		loading.whenComplete((value, error) -> {
+			if (error != null) {
+				loadFailures.increment();
+				synchronized (lock) {
+					if (entries.remove(key, entry)) {
+						insertionOrder.remove(key);
+					}
+				}
+				entry.value.completeExceptionally(error);
+			} else {
+				entry.value.complete(value);
+			}
+		});
+	}
+
+	/**
+	 * Lance un seul rechargement en arrière-plan pour une valeur chargée depuis plus de {@code refreshAfter}.
+	 */
+	private void refreshIfStale(K key, Entry<V> entry, long now) {
+		if (now - entry.loadedAtNanos < refreshAfterNanos || !entry.value.isDone()
+				|| entry.value.isCompletedExceptionally() || !entry.refreshing.compareAndSet(false, true)) {
+			return;
+		}
+		refreshes.increment();
+		CompletableFuture<V> reloading;
+		try {
+			reloading = loader.apply(key);
+		} catch (RuntimeException e) {
+			reloading = CompletableFuture.failedFuture(e);
+		}
+		reloading.whenComplete((value, error) -> {
+			if (error != null) {
+				loadFailures.increment();
+				entry.refreshing.set(false);
+			} else {
+				Entry<V> refreshed = new Entry<>(CompletableFuture.completedFuture(value), nanoClock.getAsLong());
+				synchronized (lock) {
+					if (entries.replace(key, entry, refreshed)) {
+						moveToNewest(key);
+					}
+				}
+			}
+		});
+	}
+
+	// Appelées sous lock
+	private void moveToNewest(K key) {
+		insertionOrder.remove(key);
+		insertionOrder.add(key);
+	}
+
+	private void evictOverflow() {
+		Iterator<K> eldest = insertionOrder.iterator();
+		while (entries.size() > maxEntries && eldest.hasNext()) {
+			entries.remove(eldest.next());
+			eldest.remove();
+			evictions.increment();
+		}
+	}
+
+	private static final class Entry<V> {
+		private final CompletableFuture<V> value;
+		private final long loadedAtNanos;
+		private final AtomicBoolean refreshing = new AtomicBoolean();
+
+		private Entry(CompletableFuture<V> value, long loadedAtNanos) {
+			this.value = value;
+			this.loadedAtNanos = loadedAtNanos;
+		}
+
+		private boolean isExpired(long now, long expireAfterNanos) {
+			return now - loadedAtNanos >= expireAfterNanos;
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package com.openclassrooms.tourguide.concurrent;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool de threads à file bornée, dédié à un type de trafic (GPS, récompenses, requêtes HTTP).
+ *
+ * - File d'attente de capacité fixe : une rafale de soumissions ne peut plus remplir le tas
+ *   comme avec la file illimitée de {@code Executors.newFixedThreadPool}
+ * - File pleine : la tâche est exécutée par l'appelant ou refusée selon l'{@link OverflowPolicy}
+ * - Un pool par type de trafic : une rafale du Tracker occupe le pool GPS sans retarder les
+ *   tâches des requêtes interactives
+ * - Instrumenté : profondeur de file, tâches actives et temps d'attente en file ({@link #getStats()})
+ */
+public class Bulkhead extends ThreadPoolExecutor {
+	private final String name;
+	private final int queueCapacity;
+	private final LongAdder callerRuns = new LongAdder();
+	private final LongAdder rejections = new LongAdder();
+	private final LongAdder waitedTasks = new LongAdder();
+	private final LongAdder totalWaitNanos = new LongAdder();
+	private final AtomicLong maxWaitNanos = new AtomicLong();
+
+	public Bulkhead(String name, int threads, int queueCapacity, OverflowPolicy overflowPolicy,
+			ThreadFactory threadFactory) {
+		super(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), threadFactory);
+		this.name = name;
+		this.queueCapacity = queueCapacity;
+		setRejectedExecutionHandler(new OverflowHandler(overflowPolicy));
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		super.execute(new QueuedTask(command, System.nanoTime()));
+	}
+
+	@Override
+	protected void beforeExecute(Thread thread, Runnable task) {
+		if (task instanceof QueuedTask queued) {
+			long waitNanos = System.nanoTime() - queued.enqueuedAtNanos;
+			waitedTasks.increment();
+			totalWaitNanos.add(waitNanos);
+			maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+		}
+		super.beforeExecute(thread, task);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return le nombre de tâches sorties de la file, pour le calcul du temps d'attente moyen
+	 */
+	public long getWaitedTaskCount() {
+		return waitedTasks.sum();
+	}
+
+	public long getTotalWaitNanos() {
+		return totalWaitNanos.sum();
+	}
+
+	public BulkheadStats getStats() {
+		long waited = waitedTasks.sum();
+		double averageWaitMillis = waited == 0 ? 0 : totalWaitNanos.sum() / (double) waited / 1_000_000;
+		return new BulkheadStats(name, getActiveCount(), getQueue().size(), queueCapacity, getCompletedTaskCount(),
+				callerRuns.sum(), rejections.sum(), averageWaitMillis, maxWaitNanos.get() / 1_000_000.0);
+	}
+
+	private final class OverflowHandler implements RejectedExecutionHandler {
+		private final OverflowPolicy policy;
+
+		private OverflowHandler(OverflowPolicy policy) {
+			this.policy = policy;
+		}
+
+		@Override
+		public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+			if (policy == OverflowPolicy.CALLER_RUNS && !executor.isShutdown()) {
+				callerRuns.increment();
+				// Exécutée sans passer par la file : aucune attente à mesurer
+				((QueuedTask) task).command.run();
+				return;
+			}
+			rejections.increment();
+			throw new RejectedExecutionException("Bulkhead " + name + " saturé : " + executor.getQueue().size()
+					+ " tâches en attente");
+		}
+	}
+
+	private record QueuedTask(Runnable command, long enqueuedAtNanos) implements Runnable {
+		@Override
+		public void run() {
+			command.run();
+		}
+	}
+}
@@ -0,0 +1,18 @@
+package com.openclassrooms.tourguide.concurrent;
+
+/**
+ * Instantané de l'activité d'un {@link Bulkhead}.
+ *
+ * @param name nom du bulkhead
+ * @param activeCount tâches en cours d'exécution sur le pool
+ * @param queueDepth tâches en attente dans la file
+ * @param queueCapacity capacité de la file
+ * @param completedTasks tâches terminées sur le pool
+ * @param callerRunsTasks tâches exécutées par le thread appelant, file pleine
+ * @param rejectedTasks tâches refusées, file pleine
+ * @param averageWaitMillis attente moyenne en file avant exécution
+ * @param maxWaitMillis attente maximale en file observée
+ */
+public record BulkheadStats(String name, int activeCount, int queueDepth, int queueCapacity, long completedTasks,
+		long callerRunsTasks, long rejectedTasks, double averageWaitMillis, double maxWaitMillis) {
+}
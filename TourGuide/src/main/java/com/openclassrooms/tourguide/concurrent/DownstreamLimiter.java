@@ -0,0 +1,54 @@
+package com.openclassrooms.tourguide.concurrent;
+
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Borne le nombre d'appels simultanés vers un service externe (GpsUtil, RewardCentral).
+ *
+ * Avec des threads virtuels, le nombre de tâches n'est plus limité par la taille du pool :
+ * c'est la capacité du service appelé qui fixe la concurrence, via un sémaphore équitable.
+ */
+public class DownstreamLimiter {
+	private final String name;
+	private final int maxConcurrency;
+	private final Semaphore permits;
+
+	public DownstreamLimiter(String name, int maxConcurrency) {
+		if (maxConcurrency <= 0) {
+			throw new IllegalArgumentException("La concurrence maximale de " + name + " doit être positive");
+		}
+		this.name = name;
+		this.maxConcurrency = maxConcurrency;
+		this.permits = new Semaphore(maxConcurrency, true);
+	}
+
+	/**
+	 * Exécute l'appel bloquant une fois un permis obtenu, puis le libère.
+	 */
+	public <T> T call(Supplier<T> blockingCall) {
+		try {
+			permits.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrompu en attente d'un permis " + name, e);
+		}
+		try {
+			return blockingCall.get();
+		} finally {
+			permits.release();
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getMaxConcurrency() {
+		return maxConcurrency;
+	}
+
+	public int getActiveCalls() {
+		return maxConcurrency - permits.availablePermits();
+	}
+}
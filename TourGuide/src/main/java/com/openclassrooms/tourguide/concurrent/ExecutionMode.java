@@ -0,0 +1,63 @@
+package com.openclassrooms.tourguide.concurrent;
+
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Mode d'exécution des appels bloquants vers GpsUtil et RewardCentral.
+ *
+ * - PLATFORM : pool fixe de threads système (comportement historique)
+ * - VIRTUAL : un thread virtuel par tâche, la concurrence étant bornée par downstream
+ *   via {@link DownstreamLimiter}. Nécessite un JDK 21+ à l'exécution.
+ *
+ * Les threads virtuels sont obtenus par réflexion pour que le code compile toujours en Java 17 :
+ * sur un JDK plus ancien, le mode VIRTUAL retombe sur le pool fixe.
+ */
+public enum ExecutionMode {
+	PLATFORM,
+	VIRTUAL;
+
+	public static ExecutionMode fromProperty(String value) {
+		return valueOf(value.trim().toUpperCase(Locale.ROOT));
+	}
+
+	/**
+	 * @return vrai si le JDK courant fournit les threads virtuels
+	 */
+	public static boolean virtualThreadsSupported() {
+		return newVirtualThreadPerTaskExecutor().map(executor -> {
+			executor.shutdown();
+			return true;
+		}).orElse(false);
+	}
+
+	/**
+	 * @return un exécuteur créant un thread virtuel par tâche, ou vide sur un JDK sans threads virtuels
+	 */
+	public static Optional<ExecutorService> newVirtualThreadPerTaskExecutor() {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return Optional.of((ExecutorService) factory.invoke(null));
+		} catch (ReflectiveOperationException e) {
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * @return une fabrique de threads virtuels nommés {@code prefix + n}, ou vide sur un JDK sans threads virtuels
+	 */
+	public static Optional<ThreadFactory> virtualThreadFactory(String prefix) {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+			builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+			return Optional.of((ThreadFactory) builderType.getMethod("factory").invoke(builder));
+		} catch (ReflectiveOperationException e) {
+			return Optional.empty();
+		}
+	}
+}
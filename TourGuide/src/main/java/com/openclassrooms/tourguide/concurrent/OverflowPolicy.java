@@ -0,0 +1,20 @@
+package com.openclassrooms.tourguide.concurrent;
+
+import java.util.Locale;
+
+/**
+ * Comportement d'un {@link Bulkhead} dont la file d'attente est pleine.
+ *
+ * - CALLER_RUNS : la tâche s'exécute dans le thread qui la soumet. Le producteur est ralenti
+ *   d'autant, ce qui freine naturellement une rafale (Tracker, traitements de masse)
+ * - REJECT : la tâche est refusée par une RejectedExecutionException, pour les requêtes
+ *   interactives qui préfèrent une réponse d'erreur immédiate à une attente sans fin
+ */
+public enum OverflowPolicy {
+	CALLER_RUNS,
+	REJECT;
+
+	public static OverflowPolicy fromProperty(String value) {
+		return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+	}
+}
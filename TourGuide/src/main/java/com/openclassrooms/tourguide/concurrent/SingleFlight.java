@@ -0,0 +1,149 @@
+package com.openclassrooms.tourguide.concurrent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Déduplication des traitements asynchrones concurrents portant sur une même clé.
+ *
+ * - {@link #join} : un appelant qui arrive pendant une exécution en reçoit le résultat
+ *   au lieu d'en lancer une nouvelle (récupération de position : le résultat en cours convient)
+ * - {@link #coalesce} : un appelant qui arrive pendant une exécution partage l'exécution
+ *   suivante, lancée dès la fin de la courante. Pour un traitement incrémental (récompenses),
+ *   l'appelant est ainsi assuré que ses données, arrivées après le début de l'exécution en cours,
+ *   seront prises en compte, sans qu'il y ait plus d'une exécution en attente par clé.
+ *
+ * Chaque appelant reçoit sa propre copie du CompletableFuture partagé : l'annuler n'affecte pas
+ * les autres appelants.
+ */
+public class SingleFlight<K, V> {
+	private final ConcurrentMap<K, Flight<V>> flights = new ConcurrentHashMap<>();
+	private final LongAdder executions = new LongAdder();
+	private final LongAdder sharedCalls = new LongAdder();
+
+	/**
+	 * Lance l'action pour la clé, ou rejoint l'exécution en cours pour cette clé.
+	 */
+	public CompletableFuture<V> join(K key, Supplier<CompletableFuture<V>> action) {
+		Flight<V>[] started = newFlightHolder();
+		Flight<V> flight = flights.compute(key, (k, current) -> {
+			if (current != null) {
+				sharedCalls.increment();
+				return current;
+			}
+			started[0] = new Flight<>(action);
+			return started[0];
+		});
+		if (started[0] != null) {
+			start(key, started[0]);
+		}
+		return flight.result.copy();
+	}
+
+	/**
+	 * Lance l'action pour la clé, ou la planifie une fois après l'exécution en cours.
+	 * Les appelants arrivés avant le lancement de cette exécution planifiée la partagent.
+	 */
+	public CompletableFuture<V> coalesce(K key, Supplier<CompletableFuture<V>> action) {
+		Flight<V>[] started = newFlightHolder();
+		CompletableFuture<V>[] result = newResultHolder();
+		flights.compute(key, (k, current) -> {
+			if (current == null) {
+				started[0] = new Flight<>(action);
+				result[0] = started[0].result;
+				return started[0];
+			}
+			if (current.next == null) {
+				current.next = new Flight<>(action);
+			} else {
+				sharedCalls.increment();
+			}
+			result[0] = current.next.result;
+			return current;
+		});
+		if (started[0] != null) {
+			start(key, started[0]);
+		}
+		return result[0].copy();
+	}
+
+	/**
+	 * @return le nombre d'exécutions réellement lancées
+	 */
+	public long getExecutionCount() {
+		return executions.sum();
+	}
+
+	/**
+	 * @return le nombre d'appels servis par une exécution lancée pour un autre appelant
+	 */
+	public long getSharedCallCount() {
+		return sharedCalls.sum();
+	}
+
+	public int getInFlightCount() {
+		return flights.size();
+	}
+
+	private void start(K key, Flight<V> flight) {
+		executions.increment();
+		CompletableFuture<V> execution;
+		try {
+			execution = flight.action.get();
+		} catch (RuntimeException e) {
+			execution = CompletableFuture.failedFuture(e);
+		}
+		execution.whenComplete((value, error) -> {
+			// La clé est libérée (ou passée à l'exécution planifiée) avant de notifier les appelants :
+			// un appel reçu après la notification ne rejoint jamais une exécution terminée
+			Flight<V> next = advance(key, flight);
+			if (error != null) {
+				flight.result.completeExceptionally(error);
+			} else {
+				flight.result.complete(value);
+			}
+			if (next != null) {
+				start(key, next);
+			}
+		});
+	}
+
+	private Flight<V> advance(K key, Flight<V> finished) {
+		Flight<V>[] next = newFlightHolder();
+		flights.compute(key, (k, current) -> {
+			if (current != finished) {
+				return current;
+			}
+			next[0] = current.next;
+			return current.next;
+		});
+		return next[0];
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <V> Flight<V>[] newFlightHolder() {
+		return new Flight[1];
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <V> CompletableFuture<V>[] newResultHolder() {
+		return new CompletableFuture[1];
+	}
+
+	/**
+	 * Exécution en cours ou planifiée. {@code next} n'est lu et modifié que dans les
+	 * fonctions de calcul de la map, sous le verrou de la clé.
+	 */
+	private static final class Flight<V> {
+		private final Supplier<CompletableFuture<V>> action;
+		private final CompletableFuture<V> result = new CompletableFuture<>();
+		private Flight<V> next;
+
+		private Flight(Supplier<CompletableFuture<V>> action) {
+			this.action = action;
+		}
+	}
+}
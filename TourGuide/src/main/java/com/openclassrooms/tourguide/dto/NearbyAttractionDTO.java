@@ -5,13 +5,14 @@ import gpsUtil.location.Location;
 /**
  * Record représentant les informations d'une attraction à proximité d'un utilisateur.
  * Les records sont immutables et parfaits pour les DTOs.
+ * {@code rewardPoints} est null si RewardCentral n'a pas répondu dans le délai imparti.
  */
 public record NearbyAttractionDTO(
         String name,
         Location attractionLocation,
         Location userLocation,
         double distance,
-        int rewardPoints
+        Integer rewardPoints
 ) {
     // Les records fournissent automatiquement :
     // - Un constructeur
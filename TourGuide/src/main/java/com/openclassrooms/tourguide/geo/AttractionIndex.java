@@ -0,0 +1,325 @@
+package com.openclassrooms.tourguide.geo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+
+/**
+ * Index spatial immuable du catalogue d'attractions.
+ *
+ * Chaque attraction est projetée une seule fois sur la sphère unité (vecteur x, y, z),
+ * puis rangée dans un k-d tree 3D. La longueur de corde entre deux points de la sphère
+ * croît strictement avec la distance orthodromique : l'élagage par plan de coupe est donc
+ * exact, sans cas particulier pour l'antiméridien ou les pôles.
+ *
+ * Requêtes supportées :
+ * - {@link #nearest(Location, int)} : les k attractions les plus proches
+ * - {@link #nearest(Location, int, double)} : les k attractions les plus proches dans un rayon en miles
+ * - {@link #withinRadius(Location, double)} : toutes les attractions dans un rayon en miles
+ * - {@link #isWithin(int, double[], double)} : test de proximité d'une attraction donnée, pour un point
+ *   déjà projeté par {@link #unitVector(Location)} ; {@link #isWithin(int, Location, double)} pour un point isolé
+ *
+ * Le coût d'une requête est en O(log n + résultats) au lieu d'un parcours complet du catalogue.
+ * Les termes trigonométriques des attractions sont calculés une seule fois à la construction :
+ * une requête ne fait que trois appels trigonométriques pour projeter le point recherché.
+ * Les distances renvoyées correspondent à {@link GeoDistance#miles} à {@link GeoDistance#TOLERANCE_MILES} près.
+ * Chaque attraction reçoit un ordinal (sa position dans le catalogue) utilisable comme indice
+ * de tableau ou de BitSet.
+ * L'instance est immuable et peut être partagée sans synchronisation entre tous les threads.
+ */
+public final class AttractionIndex {
+	// Marge relative appliquée au rayon d'élagage pour absorber les erreurs d'arrondi
+	private static final double PRUNING_EPSILON = 1e-9;
+
+	/**
+	 * Attraction trouvée par une requête, accompagnée de son ordinal dans le catalogue
+	 * et de sa distance (en miles) au point recherché.
+	 */
+	public record Neighbor(Attraction attraction, int ordinal, double distance) {
+	}
+
+	private final List<Attraction> attractions;
+	private final Map<String, Integer> ordinalsByName;
+	// Nœuds du k-d tree stockés à plat : le nœud d'un sous-tableau [lo, hi) est à l'indice (lo + hi) / 2
+	private final Attraction[] nodes;
+	private final int[] ordinals;
+	private final double[][] coordinates;
+	// Vecteurs unitaires indexés par ordinal, partagés avec coordinates
+	private final double[][] vectorsByOrdinal;
+	private final byte[] splitAxis;
+
+	public AttractionIndex(List<Attraction> attractions) {
+		this.attractions = List.copyOf(attractions);
+		int size = this.attractions.size();
+		this.nodes = this.attractions.toArray(new Attraction[0]);
+		this.ordinals = new int[size];
+		this.ordinalsByName = new HashMap<>(size * 2);
+		this.coordinates = new double[size][];
+		this.splitAxis = new byte[size];
+
+		Integer[] order = new Integer[size];
+		double[][] vectors = new double[size][];
+		for (int i = 0; i < size; i++) {
+			order[i] = i;
+			vectors[i] = unitVector(nodes[i]);
+		}
+		this.vectorsByOrdinal = vectors;
+		build(order, vectors, 0, size);
+		for (int i = 0; i < size; i++) {
+			nodes[i] = this.attractions.get(order[i]);
+			ordinals[i] = order[i];
+			coordinates[i] = vectors[order[i]];
+			ordinalsByName.putIfAbsent(this.attractions.get(i).attractionName, i);
+		}
+	}
+
+	/**
+	 * @return le catalogue complet, dans l'ordre d'origine
+	 */
+	public List<Attraction> getAttractions() {
+		return attractions;
+	}
+
+	public int size() {
+		return attractions.size();
+	}
+
+	/**
+	 * @return l'ordinal de l'attraction portant ce nom, ou -1 si elle n'est pas au catalogue
+	 */
+	public int ordinalOf(String attractionName) {
+		return ordinalsByName.getOrDefault(attractionName, -1);
+	}
+
+	/**
+	 * Retourne les k attractions les plus proches, ordonnées par distance croissante.
+	 *
+	 * @param location point de référence
+	 * @param k nombre maximal de résultats
+	 * @return au plus k voisins, du plus proche au plus éloigné
+	 */
+	public List<Neighbor> nearest(Location location, int k) {
+		return nearest(location, k, Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * Retourne les k attractions les plus proches situées à moins du rayon donné, ordonnées par
+	 * distance croissante.
+	 *
+	 * Le rayon borne la recherche dès le départ : une branche dont le plan de coupe est au-delà du
+	 * rayon n'est jamais visitée. Une fois k candidats trouvés, la borne se resserre à la distance
+	 * du k-ième : la recherche s'arrête dès que la frontière restante est plus éloignée.
+	 *
+	 * @param location point de référence
+	 * @param k nombre maximal de résultats
+	 * @param radiusMiles rayon de recherche en miles
+	 * @return au plus k voisins dans le rayon, du plus proche au plus éloigné
+	 */
+	public List<Neighbor> nearest(Location location, int k, double radiusMiles) {
+		if (k <= 0 || radiusMiles < 0 || nodes.length == 0) {
+			return Collections.emptyList();
+		}
+		double[] query = unitVector(location);
+		// Max-heap sur la corde : peek() donne le plus éloigné des k meilleurs candidats
+		PriorityQueue<Candidate> best = new PriorityQueue<>(k + 1,
+				Comparator.comparingDouble(Candidate::chordSquared).reversed());
+		searchNearest(0, nodes.length, query, k, chordSquaredBound(radiusMiles), best);
+
+		List<Neighbor> result = new ArrayList<>(best.size());
+		while (!best.isEmpty()) {
+			Neighbor neighbor = best.poll().toNeighbor(this);
+			if (neighbor.distance() <= radiusMiles) {
+				result.add(neighbor);
+			}
+		}
+		Collections.reverse(result);
+		return result;
+	}
+
+	/**
+	 * Retourne toutes les attractions situées à une distance inférieure ou égale au rayon donné,
+	 * ordonnées par distance croissante.
+	 *
+	 * @param location point de référence
+	 * @param radiusMiles rayon de recherche en miles
+	 * @return les voisins dans le rayon
+	 */
+	public List<Neighbor> withinRadius(Location location, double radiusMiles) {
+		if (radiusMiles < 0 || nodes.length == 0) {
+			return Collections.emptyList();
+		}
+		double[] query = unitVector(location);
+		List<Candidate> candidates = new ArrayList<>();
+		searchRadius(0, nodes.length, query, chordSquaredBound(radiusMiles), candidates);
+
+		List<Neighbor> result = new ArrayList<>(candidates.size());
+		for (Candidate candidate : candidates) {
+			Neighbor neighbor = candidate.toNeighbor(this);
+			if (neighbor.distance() <= radiusMiles) {
+				result.add(neighbor);
+			}
+		}
+		result.sort(Comparator.comparingDouble(Neighbor::distance));
+		return result;
+	}
+
+	/**
+	 * Teste si l'attraction d'ordinal donné est à une distance inférieure ou égale au rayon, avec la
+	 * même distance que {@link #withinRadius(Location, double)}. Aucun appel trigonométrique côté
+	 * attraction : le point est projeté une seule fois par l'appelant, quel que soit le nombre
+	 * d'attractions comparées.
+	 *
+	 * @param ordinal ordinal de l'attraction dans le catalogue
+	 * @param unitVector point projeté par {@link #unitVector(Location)}
+	 * @param radiusMiles rayon en miles
+	 */
+	public boolean isWithin(int ordinal, double[] unitVector, double radiusMiles) {
+		return chordToMiles(chordSquared(vectorsByOrdinal[ordinal], unitVector)) <= radiusMiles;
+	}
+
+	/**
+	 * Variante pour un point isolé : l'écart de latitude, minorant de la distance, écarte les points
+	 * manifestement éloignés avant toute projection.
+	 */
+	public boolean isWithin(int ordinal, Location location, double radiusMiles) {
+		double latitudeGap = Math.abs(attractions.get(ordinal).latitude - location.latitude);
+		if (latitudeGap * GeoDistance.STATUTE_MILES_PER_DEGREE > radiusMiles + GeoDistance.TOLERANCE_MILES) {
+			return false;
+		}
+		return isWithin(ordinal, unitVector(location), radiusMiles);
+	}
+
+	/**
+	 * @return la projection du point sur la sphère unité (x, y, z)
+	 */
+	public static double[] unitVector(Location location) {
+		double lat = Math.toRadians(location.latitude);
+		double lon = Math.toRadians(location.longitude);
+		double cosLat = Math.cos(lat);
+		return new double[] { cosLat * Math.cos(lon), cosLat * Math.sin(lon), Math.sin(lat) };
+	}
+
+	/**
+	 * @param bound carré de la corde au-delà duquel aucun candidat n'est retenu (rayon de recherche)
+	 */
+	private void searchNearest(int lo, int hi, double[] query, int k, double bound, PriorityQueue<Candidate> best) {
+		if (lo >= hi) {
+			return;
+		}
+		int mid = (lo + hi) >>> 1;
+		double chordSquared = chordSquared(coordinates[mid], query);
+		if (chordSquared <= bound) {
+			if (best.size() < k) {
+				best.add(new Candidate(mid, chordSquared));
+			} else if (chordSquared < best.peek().chordSquared()) {
+				best.poll();
+				best.add(new Candidate(mid, chordSquared));
+			}
+		}
+
+		int axis = splitAxis[mid];
+		double delta = query[axis] - coordinates[mid][axis];
+		boolean leftFirst = delta < 0;
+		searchNearest(leftFirst ? lo : mid + 1, leftFirst ? mid : hi, query, k, bound, best);
+		// Le sous-arbre opposé n'est visité que si le plan de coupe est dans le rayon et, une fois
+		// k candidats trouvés, plus proche que le k-ième
+		double frontier = best.size() < k ? bound : Math.min(bound, best.peek().chordSquared());
+		if (delta * delta <= frontier) {
+			searchNearest(leftFirst ? mid + 1 : lo, leftFirst ? hi : mid, query, k, bound, best);
+		}
+	}
+
+	private void searchRadius(int lo, int hi, double[] query, double bound, List<Candidate> out) {
+		if (lo >= hi) {
+			return;
+		}
+		int mid = (lo + hi) >>> 1;
+		double chordSquared = chordSquared(coordinates[mid], query);
+		if (chordSquared <= bound) {
+			out.add(new Candidate(mid, chordSquared));
+		}
+
+		int axis = splitAxis[mid];
+		double delta = query[axis] - coordinates[mid][axis];
+		if (delta < 0 || delta * delta <= bound) {
+			searchRadius(lo, mid, query, bound, out);
+		}
+		if (delta >= 0 || delta * delta <= bound) {
+			searchRadius(mid + 1, hi, query, bound, out);
+		}
+	}
+
+	/**
+	 * Construit récursivement le k-d tree en plaçant la médiane de l'axe le plus étendu au centre
+	 * du sous-tableau.
+	 */
+	private void build(Integer[] order, double[][] vectors, int lo, int hi) {
+		if (hi - lo <= 0) {
+			return;
+		}
+		int axis = widestAxis(order, vectors, lo, hi);
+		Arrays.sort(order, lo, hi, Comparator.comparingDouble(i -> vectors[i][axis]));
+		int mid = (lo + hi) >>> 1;
+		splitAxis[mid] = (byte) axis;
+		build(order, vectors, lo, mid);
+		build(order, vectors, mid + 1, hi);
+	}
+
+	private static int widestAxis(Integer[] order, double[][] vectors, int lo, int hi) {
+		int widest = 0;
+		double widestSpread = -1;
+		for (int axis = 0; axis < 3; axis++) {
+			double min = Double.POSITIVE_INFINITY;
+			double max = Double.NEGATIVE_INFINITY;
+			for (int i = lo; i < hi; i++) {
+				double value = vectors[order[i]][axis];
+				min = Math.min(min, value);
+				max = Math.max(max, value);
+			}
+			if (max - min > widestSpread) {
+				widestSpread = max - min;
+				widest = axis;
+			}
+		}
+		return widest;
+	}
+
+	private static double chordSquared(double[] a, double[] b) {
+		double dx = a[0] - b[0];
+		double dy = a[1] - b[1];
+		double dz = a[2] - b[2];
+		return dx * dx + dy * dy + dz * dz;
+	}
+
+	/**
+	 * Convertit un rayon en miles en borne sur le carré de la corde. Au-delà d'un demi-tour
+	 * de sphère, toute la sphère est couverte (corde maximale = 2).
+	 */
+	private static double chordSquaredBound(double radiusMiles) {
+		double angle = radiusMiles / GeoDistance.STATUTE_MILES_PER_RADIAN;
+		if (angle >= Math.PI) {
+			return 4 + PRUNING_EPSILON;
+		}
+		double chord = 2 * Math.sin(angle / 2);
+		return chord * chord * (1 + PRUNING_EPSILON) + PRUNING_EPSILON;
+	}
+
+	private static double chordToMiles(double chordSquared) {
+		double halfChord = Math.min(1, Math.sqrt(chordSquared) / 2);
+		return 2 * Math.asin(halfChord) * GeoDistance.STATUTE_MILES_PER_RADIAN;
+	}
+
+	private record Candidate(int node, double chordSquared) {
+		Neighbor toNeighbor(AttractionIndex index) {
+			return new Neighbor(index.nodes[node], index.ordinals[node], chordToMiles(chordSquared));
+		}
+	}
+}
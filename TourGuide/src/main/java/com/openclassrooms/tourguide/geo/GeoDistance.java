@@ -0,0 +1,57 @@
+package com.openclassrooms.tourguide.geo;
+
+import gpsUtil.location.Location;
+
+/**
+ * Calculs de distance orthodromique en miles terrestres.
+ *
+ * - {@link #miles(Location, Location)} : formule historique de RewardsService (loi des cosinus
+ *   sphérique), bornée pour ne jamais renvoyer NaN sur deux points identiques
+ * - {@link #isWithin(Location, Location, double)} : test de proximité entre deux points quelconques.
+ *   L'écart de latitude est un minorant de la distance : s'il dépasse déjà le rayon, le couple est
+ *   rejeté sans appel trigonométrique. Sinon la formule complète est évaluée, trigonométrie des deux
+ *   points comprise ; le résultat est identique à {@code miles(a, b) <= rayon}.
+ *
+ * Les comparaisons répétées à des attractions du catalogue ne passent pas par cette classe :
+ * {@link AttractionIndex} précalcule leurs vecteurs unitaires et ses distances diffèrent de
+ * {@link #miles(Location, Location)} d'au plus {@link #TOLERANCE_MILES}.
+ */
+public final class GeoDistance {
+	public static final double STATUTE_MILES_PER_NAUTICAL_MILE = 1.15077945;
+	// 1 degré d'arc = 60 milles nautiques
+	public static final double STATUTE_MILES_PER_DEGREE = STATUTE_MILES_PER_NAUTICAL_MILE * 60;
+	public static final double STATUTE_MILES_PER_RADIAN = STATUTE_MILES_PER_DEGREE * Math.toDegrees(1);
+	/**
+	 * Écart maximal entre une distance de l'index spatial et la formule historique (environ 16 cm).
+	 * Il est dominé par l'imprécision de acos près de 1 : pour deux points quasi confondus,
+	 * la formule historique peut renvoyer jusqu'à 1e-4 mile au lieu de 0.
+	 */
+	public static final double TOLERANCE_MILES = 1e-4;
+
+	private GeoDistance() {
+	}
+
+	public static double miles(Location loc1, Location loc2) {
+		double lat1 = Math.toRadians(loc1.latitude);
+		double lon1 = Math.toRadians(loc1.longitude);
+		double lat2 = Math.toRadians(loc2.latitude);
+		double lon2 = Math.toRadians(loc2.longitude);
+
+		double cosAngle = Math.sin(lat1) * Math.sin(lat2) + Math.cos(lat1) * Math.cos(lat2) * Math.cos(lon1 - lon2);
+		// Les arrondis peuvent faire légèrement sortir le cosinus de [-1, 1]
+		double angle = Math.acos(Math.max(-1, Math.min(1, cosAngle)));
+
+		double nauticalMiles = 60 * Math.toDegrees(angle);
+		return STATUTE_MILES_PER_NAUTICAL_MILE * nauticalMiles;
+	}
+
+	/**
+	 * @return vrai si la distance entre les deux points est inférieure ou égale au rayon
+	 */
+	public static boolean isWithin(Location loc1, Location loc2, double radiusMiles) {
+		if (Math.abs(loc1.latitude - loc2.latitude) * STATUTE_MILES_PER_DEGREE > radiusMiles + TOLERANCE_MILES) {
+			return false;
+		}
+		return miles(loc1, loc2) <= radiusMiles;
+	}
+}
@@ -0,0 +1,104 @@
+package com.openclassrooms.tourguide.geo;
+
+import java.util.function.LongConsumer;
+
+import gpsUtil.location.Location;
+
+/**
+ * Découpage de la sphère en cellules de {@code cellDegrees} degrés de côté (latitude et longitude).
+ *
+ * Une cellule est identifiée par un entier {@code ligne * colonnes + colonne}, utilisable comme clé
+ * de regroupement. {@link #forEachCellWithin} énumère les cellules pouvant contenir un point situé
+ * à moins d'un rayon donné d'un centre : l'énumération est conservatrice (jamais de cellule
+ * manquante), y compris de part et d'autre de l'antiméridien et près des pôles, où l'emprise en
+ * longitude s'élargit.
+ */
+public final class GeoGrid {
+	// Plus petite cellule retenue pour un petit rayon : borne le nombre de cellules à regrouper
+	private static final double MIN_CELL_DEGREES = 0.25;
+	// Marge sur le rayon, au-delà de l'écart toléré entre les formules de distance
+	private static final double MARGIN_MILES = 10 * GeoDistance.TOLERANCE_MILES;
+
+	private final double cellDegrees;
+	private final int rows;
+	private final int columns;
+
+	public GeoGrid(double cellDegrees) {
+		if (!(cellDegrees > 0 && cellDegrees <= 180)) {
+			throw new IllegalArgumentException("Taille de cellule invalide : " + cellDegrees);
+		}
+		this.cellDegrees = cellDegrees;
+		this.rows = (int) Math.ceil(180 / cellDegrees);
+		this.columns = (int) Math.ceil(360 / cellDegrees);
+	}
+
+	/**
+	 * @return une grille dont les cellules ont environ la taille du rayon : un cercle de ce rayon
+	 *         chevauche au plus quelques cellules, hors régions polaires
+	 */
+	public static GeoGrid forRadius(double radiusMiles) {
+		double radiusDegrees = radiusMiles / GeoDistance.STATUTE_MILES_PER_DEGREE;
+		return new GeoGrid(Math.max(MIN_CELL_DEGREES, Math.min(90, radiusDegrees)));
+	}
+
+	public double getCellDegrees() {
+		return cellDegrees;
+	}
+
+	public long cellOf(Location location) {
+		int row = clamp((int) Math.floor((location.latitude + 90) / cellDegrees), rows);
+		return (long) row * columns + columnOf(location.longitude);
+	}
+
+	/**
+	 * Énumère les cellules pouvant contenir un point situé à moins de {@code radiusMiles} du centre.
+	 * L'emprise est celle du rectangle englobant le cercle : elle peut inclure quelques cellules
+	 * en trop, jamais en manquer une.
+	 */
+	public void forEachCellWithin(Location center, double radiusMiles, LongConsumer action) {
+		double radiusDegrees = (radiusMiles + MARGIN_MILES) / GeoDistance.STATUTE_MILES_PER_DEGREE;
+		int firstRow = clamp((int) Math.floor((center.latitude - radiusDegrees + 90) / cellDegrees), rows);
+		int lastRow = clamp((int) Math.floor((center.latitude + radiusDegrees + 90) / cellDegrees), rows);
+
+		// Emprise exacte en longitude d'un cercle sur la sphère ; si le cercle contient un pôle,
+		// toutes les longitudes sont concernées
+		double longitudeSpan = 180;
+		if (radiusDegrees < 90) {
+			double sinRadius = Math.sin(Math.toRadians(radiusDegrees));
+			double cosLatitude = Math.cos(Math.toRadians(center.latitude));
+			if (sinRadius < cosLatitude) {
+				longitudeSpan = Math.toDegrees(Math.asin(sinRadius / cosLatitude));
+			}
+		}
+		double west = center.longitude - longitudeSpan;
+		double east = center.longitude + longitudeSpan;
+		for (int row = firstRow; row <= lastRow; row++) {
+			if (longitudeSpan >= 180) {
+				forEachColumn(row, 0, columns - 1, action);
+			} else if (west < -180) {
+				// Emprise à cheval sur l'antiméridien : deux plages de colonnes
+				forEachColumn(row, columnOf(west + 360), columns - 1, action);
+				forEachColumn(row, 0, columnOf(east), action);
+			} else if (east > 180) {
+				forEachColumn(row, columnOf(west), columns - 1, action);
+				forEachColumn(row, 0, columnOf(east - 360), action);
+			} else {
+				forEachColumn(row, columnOf(west), columnOf(east), action);
+			}
+		}
+	}
+
+	private void forEachColumn(int row, int firstColumn, int lastColumn, LongConsumer action) {
+		for (int column = firstColumn; column <= lastColumn; column++) {
+			action.accept((long) row * columns + column);
+		}
+	}
+
+	private int columnOf(double longitude) {
+		return clamp((int) Math.floor((longitude + 180) / cellDegrees), columns);
+	}
+
+	private static int clamp(int index, int size) {
+		return Math.max(0, Math.min(size - 1, index));
+	}
+}
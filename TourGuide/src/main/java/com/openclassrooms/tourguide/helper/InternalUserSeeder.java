@@ -0,0 +1,111 @@
+package com.openclassrooms.tourguide.helper;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import org.apache.commons.lang3.time.StopWatch;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.user.User;
+
+/**
+ * Création des utilisateurs internes de test.
+ *
+ * L'utilisateur d'indice {@code i} est entièrement déterminé par la graine, l'indice et la date de
+ * référence : il reçoit sa propre source aléatoire (SplittableRandom), sans partage entre threads
+ * ni nouvel objet Random par coordonnée. La création peut donc être faite en parallèle, dans
+ * n'importe quel ordre, ou à la demande : le résultat est toujours le même.
+ */
+public class InternalUserSeeder {
+	private static final String USER_NAME_PREFIX = "internalUser";
+	private static final long SEED_MULTIPLIER = 0x9E3779B97F4A7C15L;
+	private static final double MAX_LATITUDE = 85.05112878;
+
+	private final SeedingMode mode;
+	private final long seed;
+	private final int historyLength;
+	private final Instant referenceTime;
+
+	/**
+	 * @param historyLength nombre de positions générées par utilisateur
+	 * @param referenceTime date à partir de laquelle sont tirées les dates des positions (jusqu'à 30 jours avant)
+	 */
+	public InternalUserSeeder(SeedingMode mode, long seed, int historyLength, Instant referenceTime) {
+		if (historyLength < 0) {
+			throw new IllegalArgumentException("Longueur d'historique négative");
+		}
+		this.mode = mode;
+		this.seed = seed;
+		this.historyLength = historyLength;
+		this.referenceTime = referenceTime;
+	}
+
+	public SeedingMode getMode() {
+		return mode;
+	}
+
+	/**
+	 * Crée l'utilisateur d'indice donné.
+	 *
+	 * @param preparer appliqué à l'utilisateur avant la génération de son historique
+	 *                 (règles de rétention et mode de stockage)
+	 */
+	public User generate(int index, Consumer<User> preparer) {
+		SplittableRandom random = new SplittableRandom(seed * SEED_MULTIPLIER + index);
+		String userName = USER_NAME_PREFIX + index;
+		User user = new User(randomUuid(random), userName, "000", userName + "@tourGuide.com");
+		preparer.accept(user);
+		for (int i = 0; i < historyLength; i++) {
+			Location location = new Location(random.nextDouble(-MAX_LATITUDE, MAX_LATITUDE),
+					random.nextDouble(-180, 180));
+			Date timeVisited = Date.from(referenceTime.minus(Duration.ofDays(random.nextInt(30))));
+			user.addToVisitedLocations(new VisitedLocation(user.getUserId(), location, timeVisited));
+		}
+		return user;
+	}
+
+	/**
+	 * Crée en parallèle les utilisateurs d'indices 0 à {@code count - 1}.
+	 *
+	 * @param sink reçoit chaque utilisateur créé, depuis plusieurs threads
+	 */
+	public SeedingReport seedAll(int count, Consumer<User> preparer, Consumer<User> sink) {
+		StopWatch stopWatch = StopWatch.createStarted();
+		IntStream.range(0, count).parallel().forEach(index -> sink.accept(generate(index, preparer)));
+		stopWatch.stop();
+		return new SeedingReport(count, stopWatch.getTime(), ForkJoinPool.getCommonPoolParallelism());
+	}
+
+	/**
+	 * @return l'indice de l'utilisateur interne portant ce nom, ou -1 si ce n'est pas un
+	 *         utilisateur interne d'indice inférieur à {@code count}
+	 */
+	public static int indexOf(String userName, int count) {
+		if (userName == null || !userName.startsWith(USER_NAME_PREFIX)) {
+			return -1;
+		}
+		String digits = userName.substring(USER_NAME_PREFIX.length());
+		if (digits.isEmpty() || digits.length() > 9 || !digits.chars().allMatch(Character::isDigit)
+				|| (digits.length() > 1 && digits.charAt(0) == '0')) {
+			return -1;
+		}
+		int index = Integer.parseInt(digits);
+		return index < count ? index : -1;
+	}
+
+	/**
+	 * UUID de version 4 tiré de la source de l'utilisateur, reproductible contrairement à {@link UUID#randomUUID()}.
+	 */
+	private static UUID randomUuid(SplittableRandom random) {
+		long mostSignificantBits = (random.nextLong() & ~0xF000L) | 0x4000L;
+		long leastSignificantBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+		return new UUID(mostSignificantBits, leastSignificantBits);
+	}
+}
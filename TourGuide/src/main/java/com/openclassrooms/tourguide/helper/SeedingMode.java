@@ -0,0 +1,19 @@
+package com.openclassrooms.tourguide.helper;
+
+import java.util.Locale;
+
+/**
+ * Moment de création des utilisateurs internes.
+ *
+ * - EAGER : tous les utilisateurs sont créés avant la fin du démarrage (comportement historique)
+ * - LAZY : le démarrage n'attend pas ; les utilisateurs sont créés en arrière-plan, et un
+ *   utilisateur demandé par son nom avant sa création est créé immédiatement
+ */
+public enum SeedingMode {
+	EAGER,
+	LAZY;
+
+	public static SeedingMode fromProperty(String value) {
+		return valueOf(value.trim().toUpperCase(Locale.ROOT));
+	}
+}
@@ -0,0 +1,21 @@
+package com.openclassrooms.tourguide.helper;
+
+/**
+ * Bilan de la création des utilisateurs internes.
+ *
+ * @param users utilisateurs créés
+ * @param elapsedMillis durée de la création
+ * @param parallelism nombre de threads ayant participé à la création
+ */
+public record SeedingReport(int users, long elapsedMillis, int parallelism) {
+
+	public double usersPerSecond() {
+		return elapsedMillis == 0 ? users * 1000.0 : users * 1000.0 / elapsedMillis;
+	}
+
+	@Override
+	public String toString() {
+		return users + " users in " + elapsedMillis + " ms (" + Math.round(usersPerSecond()) + " users/s, parallelism "
+				+ parallelism + ")";
+	}
+}
@@ -0,0 +1,25 @@
+package com.openclassrooms.tourguide.metrics;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Mesure des traitements asynchrones : {@link Timer#record} ne couvre que l'appel, qui rend la
+ * main avant la fin du traitement. La durée enregistrée va de l'appel à la complétion du future,
+ * en succès comme en échec.
+ */
+public final class AsyncTimers {
+
+	private AsyncTimers() {
+	}
+
+	public static <T> CompletableFuture<T> time(Timer timer, Supplier<CompletableFuture<T>> action) {
+		long startNanos = System.nanoTime();
+		CompletableFuture<T> future = action.get();
+		future.whenComplete((value, error) -> timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS));
+		return future;
+	}
+}
@@ -0,0 +1,140 @@
+package com.openclassrooms.tourguide.metrics;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import com.openclassrooms.tourguide.concurrent.Bulkhead;
+import com.openclassrooms.tourguide.persistence.UserPersistence;
+import com.openclassrooms.tourguide.service.RewardPipeline;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.tracker.Tracker;
+
+/**
+ * Jauges lues à chaque collecte : nombre d'utilisateurs, retard du Tracker, état des pools, de
+ * l'étage des récompenses et de l'écriture différée des utilisateurs.
+ * Les durées et compteurs des traitements sont enregistrés directement par les services.
+ */
+public class TourGuideMeterBinder implements MeterBinder {
+	private final TourGuideService tourGuideService;
+	private final List<Bulkhead> bulkheads;
+	private final RewardPipeline rewardPipeline;
+	private final UserPersistence userPersistence;
+
+	public TourGuideMeterBinder(TourGuideService tourGuideService, List<Bulkhead> bulkheads,
+			RewardPipeline rewardPipeline, UserPersistence userPersistence) {
+		this.tourGuideService = tourGuideService;
+		this.bulkheads = bulkheads;
+		this.rewardPipeline = rewardPipeline;
+		this.userPersistence = userPersistence;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("tourguide.users", tourGuideService, service -> service.getUserRegistry().size())
+				.description("Utilisateurs enregistrés")
+				.register(registry);
+
+		Tracker tracker = tourGuideService.tracker;
+		Gauge.builder("tourguide.tracker.cycle.lag", tracker, Tracker::getCycleLagMillis)
+				.description("Retard du dernier tick du Tracker sur la cadence de la roue")
+				.baseUnit("milliseconds")
+				.register(registry);
+		Gauge.builder("tourguide.tracker.cycle.overrun", tracker,
+						t -> t.getLastCycleReport() == null ? 0 : t.getLastCycleReport().overrun())
+				.description("Suivis encore en cours à la fin du dernier tick")
+				.register(registry);
+		Gauge.builder("tourguide.tracker.round.duration", tracker,
+						t -> t.getLastRoundReport() == null ? 0 : t.getLastRoundReport().elapsedMillis())
+				.description("Durée du dernier tour complet de la roue du Tracker")
+				.baseUnit("milliseconds")
+				.register(registry);
+		Gauge.builder("tourguide.tracker.round.late", tracker,
+						t -> t.getLastRoundReport() == null ? 0 : t.getLastRoundReport().late())
+				.description("Suivis du dernier tour encore en cours à l'échéance de leur case")
+				.register(registry);
+
+		for (Bulkhead bulkhead : bulkheads) {
+			bindBulkhead(registry, bulkhead);
+		}
+
+		bindRewardPipeline(registry);
+
+		if (userPersistence.isEnabled()) {
+			bindPersistence(registry);
+		}
+	}
+
+	private void bindRewardPipeline(MeterRegistry registry) {
+		Gauge.builder("tourguide.rewards.pipeline.queue.depth", rewardPipeline, RewardPipeline::getQueueDepth)
+				.description("Utilisateurs en attente d'un calcul de récompenses")
+				.register(registry);
+		FunctionCounter.builder("tourguide.rewards.pipeline.published", rewardPipeline,
+						RewardPipeline::getPublishedCount)
+				.description("Mises à jour de position publiées")
+				.register(registry);
+		FunctionCounter.builder("tourguide.rewards.pipeline.coalesced", rewardPipeline,
+						RewardPipeline::getCoalescedCount)
+				.description("Mises à jour regroupées avec une mise à jour déjà en attente")
+				.register(registry);
+		FunctionCounter.builder("tourguide.rewards.pipeline.dropped", rewardPipeline,
+						RewardPipeline::getDroppedCount)
+				.description("Mises à jour abandonnées, file pleine")
+				.register(registry);
+		Gauge.builder("tourguide.rewards.pipeline.active", rewardPipeline, RewardPipeline::getInFlightCount)
+				.description("Calculs de récompenses lancés et non terminés")
+				.register(registry);
+		FunctionCounter.builder("tourguide.rewards.pipeline.evaluated", rewardPipeline,
+						RewardPipeline::getEvaluatedCount)
+				.description("Calculs de récompenses terminés par les workers")
+				.register(registry);
+		FunctionCounter.builder("tourguide.rewards.pipeline.failed", rewardPipeline, RewardPipeline::getFailedCount)
+				.description("Calculs de récompenses en échec")
+				.register(registry);
+	}
+
+	private void bindPersistence(MeterRegistry registry) {
+		Gauge.builder("tourguide.persistence.pending", userPersistence, UserPersistence::getPendingCount)
+				.description("Modifications en attente d'écriture")
+				.register(registry);
+		FunctionCounter.builder("tourguide.persistence.written", userPersistence, UserPersistence::getWrittenCount)
+				.description("Modifications enregistrées")
+				.register(registry);
+		FunctionCounter.builder("tourguide.persistence.batches", userPersistence, UserPersistence::getBatchCount)
+				.description("Lots écrits et vidés sur disque")
+				.register(registry);
+		FunctionCounter.builder("tourguide.persistence.dropped", userPersistence, UserPersistence::getDroppedCount)
+				.description("Modifications abandonnées file pleine, rattrapées par le snapshot suivant")
+				.register(registry);
+	}
+
+	private void bindBulkhead(MeterRegistry registry, Bulkhead bulkhead) {
+		String name = bulkhead.getName();
+		Gauge.builder("tourguide.executor.queue.depth", bulkhead, b -> b.getQueue().size())
+				.tag("bulkhead", name)
+				.description("Tâches en attente dans la file")
+				.register(registry);
+		Gauge.builder("tourguide.executor.active", bulkhead, Bulkhead::getActiveCount)
+				.tag("bulkhead", name)
+				.description("Tâches en cours d'exécution sur le pool")
+				.register(registry);
+		FunctionTimer.builder("tourguide.executor.queue.wait", bulkhead, Bulkhead::getWaitedTaskCount,
+						Bulkhead::getTotalWaitNanos, TimeUnit.NANOSECONDS)
+				.tag("bulkhead", name)
+				.description("Attente en file avant exécution")
+				.register(registry);
+		FunctionCounter.builder("tourguide.executor.overflow", bulkhead, b -> b.getStats().callerRunsTasks())
+				.tags("bulkhead", name, "policy", "caller-runs")
+				.description("Tâches soumises file pleine")
+				.register(registry);
+		FunctionCounter.builder("tourguide.executor.overflow", bulkhead, b -> b.getStats().rejectedTasks())
+				.tags("bulkhead", name, "policy", "reject")
+				.description("Tâches soumises file pleine")
+				.register(registry);
+	}
+}
@@ -0,0 +1,272 @@
+package com.openclassrooms.tourguide.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.user.LocationHistory;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserReward;
+
+/**
+ * Stockage des utilisateurs dans deux fichiers binaires d'un répertoire local, sans serveur.
+ *
+ * - {@code users.log} : journal en ajout seul des modifications (utilisateur ajouté avec son état
+ *   complet, position, récompense), vidé sur disque à chaque lot
+ * - {@code users.snapshot} : état complet des utilisateurs, réécrit périodiquement dans un fichier
+ *   temporaire puis renommé atomiquement ; le journal est alors remis à zéro
+ *
+ * Au rechargement, le snapshot est lu puis le journal rejoué. Une position dont le numéro de
+ * séquence est antérieur à celui du snapshot y figure déjà et n'est pas rejouée ; les récompenses
+ * sont dédoublonnées par attraction. Un enregistrement incomplet en fin de journal (arrêt brutal
+ * pendant une écriture) est ignoré.
+ *
+ * Les préférences et les offres de voyage ne sont pas enregistrées.
+ */
+public class FileUserRepository implements UserRepository {
+	private static final int SNAPSHOT_MAGIC = 0x54475553;
+	private static final int SNAPSHOT_VERSION = 1;
+	private static final byte USER_ADDED = 1;
+	private static final byte LOCATION_ADDED = 2;
+	private static final byte REWARD_ADDED = 3;
+	private static final int BUFFER_SIZE = 1 << 16;
+	// Marque l'absence de date de visite, comme dans l'historique en colonnes
+	private static final long NO_TIME = Long.MIN_VALUE;
+
+	private final Path snapshotFile;
+	private final Path snapshotTempFile;
+	private final Path logFile;
+	private FileOutputStream logFileStream;
+	private DataOutputStream log;
+
+	public FileUserRepository(Path directory) throws IOException {
+		Files.createDirectories(directory);
+		this.snapshotFile = directory.resolve("users.snapshot");
+		this.snapshotTempFile = directory.resolve("users.snapshot.tmp");
+		this.logFile = directory.resolve("users.log");
+	}
+
+	@Override
+	public void loadAll(Consumer<User> consumer) throws IOException {
+		Map<UUID, RestoredUser> users = new LinkedHashMap<>();
+		if (Files.exists(snapshotFile)) {
+			readSnapshot(users);
+		}
+		if (Files.exists(logFile)) {
+			replayLog(users);
+		}
+		users.values().forEach(restored -> consumer.accept(restored.user));
+	}
+
+	@Override
+	public void append(List<UserEvent> events) throws IOException {
+		DataOutputStream out = openLog(false);
+		for (UserEvent event : events) {
+			if (event instanceof UserEvent.UserAdded added) {
+				out.writeByte(USER_ADDED);
+				writeUserState(out, added.user());
+			} else if (event instanceof UserEvent.LocationAdded location) {
+				out.writeByte(LOCATION_ADDED);
+				writeUuid(out, location.userId());
+				out.writeLong(location.sequence());
+				writeVisitedLocation(out, location.visitedLocation());
+			} else if (event instanceof UserEvent.RewardAdded reward) {
+				out.writeByte(REWARD_ADDED);
+				writeUuid(out, reward.userId());
+				writeReward(out, reward.userReward());
+			}
+		}
+		// Un seul vidage sur disque pour tout le lot
+		out.flush();
+		logFileStream.getChannel().force(false);
+	}
+
+	@Override
+	public void writeSnapshot(Iterable<User> users) throws IOException {
+		try (FileOutputStream file = new FileOutputStream(snapshotTempFile.toFile());
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, BUFFER_SIZE))) {
+			out.writeInt(SNAPSHOT_MAGIC);
+			out.writeInt(SNAPSHOT_VERSION);
+			for (User user : users) {
+				out.writeBoolean(true);
+				writeUserState(out, user);
+			}
+			out.writeBoolean(false);
+			out.flush();
+			file.getChannel().force(false);
+		}
+		Files.move(snapshotTempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		// Tout ce que contenait le journal figure dans le snapshot
+		openLog(true);
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (log != null) {
+			log.close();
+			log = null;
+		}
+	}
+
+	private DataOutputStream openLog(boolean truncate) throws IOException {
+		if (log != null && !truncate) {
+			return log;
+		}
+		close();
+		logFileStream = new FileOutputStream(logFile.toFile(), !truncate);
+		log = new DataOutputStream(new BufferedOutputStream(logFileStream, BUFFER_SIZE));
+		return log;
+	}
+
+	private void readSnapshot(Map<UUID, RestoredUser> users) throws IOException {
+		try (DataInputStream in = open(snapshotFile)) {
+			if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+				throw new IOException("Snapshot des utilisateurs illisible : " + snapshotFile);
+			}
+			while (in.readBoolean()) {
+				RestoredUser restored = readUserState(in);
+				users.put(restored.user.getUserId(), restored);
+			}
+		}
+	}
+
+	private void replayLog(Map<UUID, RestoredUser> users) throws IOException {
+		try (DataInputStream in = open(logFile)) {
+			while (true) {
+				int type = in.read();
+				if (type < 0) {
+					return;
+				}
+				switch (type) {
+					case USER_ADDED -> {
+						RestoredUser restored = readUserState(in);
+						users.putIfAbsent(restored.user.getUserId(), restored);
+					}
+					case LOCATION_ADDED -> {
+						UUID userId = readUuid(in);
+						long sequence = in.readLong();
+						VisitedLocation visitedLocation = readVisitedLocation(in, userId);
+						RestoredUser restored = users.get(userId);
+						if (restored != null && sequence >= restored.snapshotSequence) {
+							restored.user.addToVisitedLocations(visitedLocation);
+						}
+					}
+					case REWARD_ADDED -> {
+						UUID userId = readUuid(in);
+						UserReward reward = readReward(in, userId);
+						RestoredUser restored = users.get(userId);
+						if (restored != null) {
+							restored.user.addUserReward(reward);
+						}
+					}
+					default -> throw new IOException("Journal des utilisateurs corrompu : type " + type);
+				}
+			}
+		} catch (EOFException e) {
+			// Dernier enregistrement incomplet : écriture interrompue, les lots précédents sont intacts
+		}
+	}
+
+	private static DataInputStream open(Path file) throws IOException {
+		InputStream in = Files.newInputStream(file);
+		return new DataInputStream(new BufferedInputStream(in, BUFFER_SIZE));
+	}
+
+	/**
+	 * Écrit l'identité, l'historique et les récompenses de l'utilisateur. Historique et récompenses
+	 * sont lus sur des vues immuables : l'utilisateur peut évoluer pendant l'écriture.
+	 */
+	private static void writeUserState(DataOutputStream out, User user) throws IOException {
+		writeUuid(out, user.getUserId());
+		out.writeUTF(user.getUserName());
+		out.writeUTF(user.getPhoneNumber());
+		out.writeUTF(user.getEmailAddress());
+		LocationHistory.Snapshot history = user.getLocationHistory().snapshot();
+		out.writeLong(history.nextSequence());
+		out.writeInt(history.size());
+		for (VisitedLocation visitedLocation : history) {
+			writeVisitedLocation(out, visitedLocation);
+		}
+		List<UserReward> rewards = user.getUserRewards();
+		out.writeInt(rewards.size());
+		for (UserReward reward : rewards) {
+			writeReward(out, reward);
+		}
+	}
+
+	private static RestoredUser readUserState(DataInputStream in) throws IOException {
+		User user = new User(readUuid(in), in.readUTF(), in.readUTF(), in.readUTF());
+		long nextSequence = in.readLong();
+		int locations = in.readInt();
+		for (int i = 0; i < locations; i++) {
+			user.addToVisitedLocations(readVisitedLocation(in, user.getUserId()));
+		}
+		int rewards = in.readInt();
+		for (int i = 0; i < rewards; i++) {
+			user.addUserReward(readReward(in, user.getUserId()));
+		}
+		return new RestoredUser(user, nextSequence);
+	}
+
+	private static void writeVisitedLocation(DataOutputStream out, VisitedLocation visitedLocation) throws IOException {
+		out.writeDouble(visitedLocation.location.latitude);
+		out.writeDouble(visitedLocation.location.longitude);
+		out.writeLong(visitedLocation.timeVisited == null ? NO_TIME : visitedLocation.timeVisited.getTime());
+	}
+
+	private static VisitedLocation readVisitedLocation(DataInputStream in, UUID userId) throws IOException {
+		Location location = new Location(in.readDouble(), in.readDouble());
+		long visitTime = in.readLong();
+		return new VisitedLocation(userId, location, visitTime == NO_TIME ? null : new Date(visitTime));
+	}
+
+	private static void writeReward(DataOutputStream out, UserReward reward) throws IOException {
+		writeVisitedLocation(out, reward.visitedLocation);
+		out.writeUTF(reward.attraction.attractionName);
+		out.writeUTF(reward.attraction.city);
+		out.writeUTF(reward.attraction.state);
+		out.writeDouble(reward.attraction.latitude);
+		out.writeDouble(reward.attraction.longitude);
+		out.writeInt(reward.getRewardPoints());
+	}
+
+	private static UserReward readReward(DataInputStream in, UUID userId) throws IOException {
+		VisitedLocation visitedLocation = readVisitedLocation(in, userId);
+		Attraction attraction = new Attraction(in.readUTF(), in.readUTF(), in.readUTF(), in.readDouble(),
+				in.readDouble());
+		return new UserReward(visitedLocation, attraction, in.readInt());
+	}
+
+	private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+		out.writeLong(uuid.getMostSignificantBits());
+		out.writeLong(uuid.getLeastSignificantBits());
+	}
+
+	private static UUID readUuid(DataInputStream in) throws IOException {
+		return new UUID(in.readLong(), in.readLong());
+	}
+
+	/**
+	 * @param snapshotSequence première séquence de position absente de l'état enregistré
+	 */
+	private record RestoredUser(User user, long snapshotSequence) {
+	}
+}
@@ -0,0 +1,32 @@
+package com.openclassrooms.tourguide.persistence;
+
+import java.util.UUID;
+
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserReward;
+
+/**
+ * Modification d'un utilisateur à enregistrer dans le {@link UserRepository}.
+ */
+public interface UserEvent {
+
+	UUID userId();
+
+	record UserAdded(User user) implements UserEvent {
+		@Override
+		public UUID userId() {
+			return user.getUserId();
+		}
+	}
+
+	/**
+	 * @param sequence numéro de séquence de la position dans l'historique de l'utilisateur : au
+	 *                 rechargement, une position déjà présente dans le snapshot n'est pas rejouée
+	 */
+	record LocationAdded(UUID userId, long sequence, VisitedLocation visitedLocation) implements UserEvent {
+	}
+
+	record RewardAdded(UUID userId, UserReward userReward) implements UserEvent {
+	}
+}
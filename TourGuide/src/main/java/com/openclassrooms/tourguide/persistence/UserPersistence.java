@@ -0,0 +1,242 @@
+package com.openclassrooms.tourguide.persistence;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserChangeListener;
+import com.openclassrooms.tourguide.user.UserRegistry;
+import com.openclassrooms.tourguide.user.UserReward;
+
+/**
+ * Écriture différée (write-behind) des utilisateurs dans un {@link UserRepository}.
+ *
+ * - Les modifications sont déposées dans une file bornée par le thread qui les fait (suivi,
+ *   calcul des récompenses) : ni écriture disque ni attente sur le chemin du suivi
+ * - Un thread dédié vide la file par lots d'au plus {@code maxBatchSize} modifications, chaque lot
+ *   étant rendu durable en une seule écriture (group commit)
+ * - Toutes les {@code snapshotInterval}, l'état complet du registre est réécrit et le journal vidé :
+ *   le rechargement ne dépend pas du nombre de modifications depuis le démarrage
+ * - File pleine : la modification est abandonnée et un snapshot est demandé. L'état en mémoire
+ *   restant la référence, le snapshot suivant rattrape les modifications perdues
+ */
+public class UserPersistence implements UserChangeListener, AutoCloseable {
+	private final Logger logger = LoggerFactory.getLogger(UserPersistence.class);
+	private final UserRepository repository;
+	private final BlockingQueue<Object> queue;
+	private final int maxBatchSize;
+	private final long snapshotIntervalNanos;
+	private final LongAdder written = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+	private final LongAdder batches = new LongAdder();
+	private volatile UserRegistry userRegistry;
+	private volatile boolean snapshotRequested;
+	private volatile boolean closed;
+	private Thread writer;
+
+	public UserPersistence(UserRepository repository, int queueCapacity, int maxBatchSize, Duration snapshotInterval) {
+		if (maxBatchSize <= 0 || snapshotInterval.isNegative() || snapshotInterval.isZero()) {
+			throw new IllegalArgumentException("Configuration de la persistance invalide");
+		}
+		this.repository = repository;
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		this.maxBatchSize = maxBatchSize;
+		this.snapshotIntervalNanos = snapshotInterval.toNanos();
+	}
+
+	/**
+	 * @return une persistance inactive : aucune modification n'est enregistrée
+	 */
+	public static UserPersistence disabled() {
+		return new UserPersistence(null, 1, 1, Duration.ofDays(1));
+	}
+
+	public boolean isEnabled() {
+		return repository != null;
+	}
+
+	/**
+	 * Recharge les utilisateurs enregistrés.
+	 */
+	public void loadAll(Consumer<User> consumer) {
+		if (!isEnabled()) {
+			return;
+		}
+		try {
+			repository.loadAll(consumer);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Enregistre l'état complet du registre, puis démarre l'écriture différée des modifications.
+	 * Le snapshot initial remplace le journal précédent : les numéros de séquence des positions
+	 * rechargées repartent de zéro.
+	 */
+	public synchronized void start(UserRegistry userRegistry) {
+		if (!isEnabled() || writer != null) {
+			return;
+		}
+		this.userRegistry = userRegistry;
+		writeSnapshot();
+		writer = new Thread(this::drain, "user-persistence");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	public void userAdded(User user) {
+		enqueue(new UserEvent.UserAdded(user));
+	}
+
+	@Override
+	public void locationAdded(User user, long sequence, VisitedLocation visitedLocation) {
+		enqueue(new UserEvent.LocationAdded(user.getUserId(), sequence, visitedLocation));
+	}
+
+	@Override
+	public void rewardAdded(User user, UserReward userReward) {
+		enqueue(new UserEvent.RewardAdded(user.getUserId(), userReward));
+	}
+
+	/**
+	 * @return un future terminé une fois enregistrées toutes les modifications déposées avant l'appel
+	 */
+	public CompletableFuture<Void> flush() {
+		if (!isEnabled() || writer == null) {
+			return CompletableFuture.completedFuture(null);
+		}
+		CompletableFuture<Void> barrier = new CompletableFuture<>();
+		try {
+			queue.put(barrier);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			barrier.completeExceptionally(e);
+		}
+		return barrier;
+	}
+
+	/**
+	 * Enregistre les modifications en attente et un dernier snapshot, puis ferme le stockage.
+	 */
+	@Override
+	public void close() {
+		if (!isEnabled() || closed) {
+			return;
+		}
+		closed = true;
+		try {
+			if (writer != null) {
+				writer.join();
+			}
+			repository.close();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			logger.error("Fermeture du stockage des utilisateurs impossible", e);
+		}
+	}
+
+	public int getPendingCount() {
+		return queue.size();
+	}
+
+	public long getWrittenCount() {
+		return written.sum();
+	}
+
+	/**
+	 * @return le nombre de modifications abandonnées file pleine, rattrapées par le snapshot suivant
+	 */
+	public long getDroppedCount() {
+		return dropped.sum();
+	}
+
+	public long getBatchCount() {
+		return batches.sum();
+	}
+
+	private void enqueue(UserEvent event) {
+		if (!isEnabled() || closed) {
+			return;
+		}
+		if (!queue.offer(event)) {
+			dropped.increment();
+			snapshotRequested = true;
+		}
+	}
+
+	private void drain() {
+		List<Object> batch = new ArrayList<>(maxBatchSize);
+		long lastSnapshot = System.nanoTime();
+		while (!closed || !queue.isEmpty()) {
+			try {
+				Object first = queue.poll(100, TimeUnit.MILLISECONDS);
+				if (first != null) {
+					batch.add(first);
+					queue.drainTo(batch, maxBatchSize - 1);
+					commit(batch);
+					batch.clear();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			if (snapshotRequested || System.nanoTime() - lastSnapshot >= snapshotIntervalNanos) {
+				writeSnapshot();
+				lastSnapshot = System.nanoTime();
+			}
+		}
+		writeSnapshot();
+	}
+
+	@SuppressWarnings("unchecked")
+	private void commit(List<Object> batch) {
+		List<UserEvent> events = new ArrayList<>(batch.size());
+		List<CompletableFuture<Void>> barriers = new ArrayList<>();
+		for (Object item : batch) {
+			if (item instanceof UserEvent event) {
+				events.add(event);
+			} else {
+				barriers.add((CompletableFuture<Void>) item);
+			}
+		}
+		try {
+			if (!events.isEmpty()) {
+				repository.append(events);
+				written.add(events.size());
+				batches.increment();
+			}
+			barriers.forEach(barrier -> barrier.complete(null));
+		} catch (IOException e) {
+			// Lot non enregistré : le prochain snapshot reprend l'état complet
+			logger.error("Écriture de " + events.size() + " modifications impossible", e);
+			snapshotRequested = true;
+			barriers.forEach(barrier -> barrier.completeExceptionally(e));
+		}
+	}
+
+	private void writeSnapshot() {
+		snapshotRequested = false;
+		try {
+			UserRegistry users = userRegistry;
+			repository.writeSnapshot(() -> users.stream().iterator());
+		} catch (IOException e) {
+			logger.error("Écriture du snapshot des utilisateurs impossible", e);
+			snapshotRequested = true;
+		}
+	}
+}
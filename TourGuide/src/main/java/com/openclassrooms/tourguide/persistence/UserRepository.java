@@ -0,0 +1,35 @@
+package com.openclassrooms.tourguide.persistence;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.openclassrooms.tourguide.user.User;
+
+/**
+ * Stockage durable des utilisateurs, de leur historique de positions et de leurs récompenses.
+ *
+ * Les écritures sont faites par un seul thread ({@link UserPersistence}) : une implémentation
+ * n'a pas à être thread-safe.
+ */
+public interface UserRepository extends AutoCloseable {
+
+	/**
+	 * Recharge tous les utilisateurs enregistrés, dans leur ordre d'enregistrement.
+	 */
+	void loadAll(Consumer<User> consumer) throws IOException;
+
+	/**
+	 * Enregistre un lot de modifications et le rend durable en une seule écriture (group commit).
+	 */
+	void append(List<UserEvent> events) throws IOException;
+
+	/**
+	 * Remplace le contenu enregistré par l'état complet des utilisateurs donnés. Les modifications
+	 * enregistrées auparavant par {@link #append} peuvent alors être supprimées.
+	 */
+	void writeSnapshot(Iterable<User> users) throws IOException;
+
+	@Override
+	void close() throws IOException;
+}
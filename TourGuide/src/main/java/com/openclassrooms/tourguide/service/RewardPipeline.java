@@ -0,0 +1,229 @@
+package com.openclassrooms.tourguide.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openclassrooms.tourguide.user.User;
+
+/**
+ * Étage de calcul des récompenses, découplé de l'étage de suivi des positions.
+ *
+ * - Le suivi publie un événement « position mise à jour » puis rend son thread : il n'attend
+ *   plus le calcul des récompenses
+ * - Les événements sont déposés dans une file bornée sans jamais bloquer l'éditeur : file pleine,
+ *   l'événement est abandonné, compté et son future échoue avec une RejectedExecutionException.
+ *   La position reste dans l'historique : le prochain calcul de l'utilisateur la prendra en compte
+ * - Quelques workers (threads dédiés) prélèvent les événements et lancent les calculs sans en
+ *   attendre la fin ; le nombre de calculs en cours est borné par {@code maxInFlight}. Le worker
+ *   ne patiente que pour obtenir une place, ce qui laisse la file se remplir (backpressure)
+ * - Les événements d'un même utilisateur en attente dans la file sont regroupés en un seul
+ *   calcul : l'utilisateur n'occupe qu'une place, quel que soit le nombre de positions reçues
+ *
+ * L'événement est retiré des événements en attente au moment où un worker le prélève, avant le
+ * calcul : une position enregistrée ensuite donne lieu à un nouvel événement, jamais ignoré par
+ * un calcul déjà commencé.
+ *
+ * Le débit du suivi et celui des récompenses se règlent ainsi séparément : taille du pool gps
+ * d'un côté, nombre de calculs simultanés de l'autre.
+ */
+public class RewardPipeline {
+	private final Logger logger = LoggerFactory.getLogger(RewardPipeline.class);
+	private final Function<User, CompletableFuture<Void>> evaluator;
+	private final BlockingQueue<PendingEvaluation> queue;
+	private final ConcurrentMap<UUID, PendingEvaluation> pending = new ConcurrentHashMap<>();
+	private final List<Thread> workers;
+	private final int maxInFlight;
+	private final Semaphore inFlight;
+	private final LongAdder published = new LongAdder();
+	private final LongAdder coalesced = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+	private final LongAdder evaluated = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private volatile boolean running = true;
+
+	/**
+	 * @param evaluator calcul des récompenses d'un utilisateur ({@link RewardsService#calculateRewards})
+	 * @param workerCount threads qui prélèvent les événements ; ils ne font que lancer les calculs
+	 * @param maxInFlight nombre maximal de calculs en cours simultanément
+	 * @param queueCapacity nombre maximal d'utilisateurs en attente
+	 */
+	public RewardPipeline(Function<User, CompletableFuture<Void>> evaluator, ThreadFactory workerFactory,
+			int workerCount, int maxInFlight, int queueCapacity) {
+		if (workerCount <= 0 || maxInFlight <= 0 || queueCapacity <= 0) {
+			throw new IllegalArgumentException("Configuration de l'étage des récompenses invalide");
+		}
+		this.evaluator = evaluator;
+		this.maxInFlight = maxInFlight;
+		this.inFlight = new Semaphore(maxInFlight);
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		this.workers = new ArrayList<>(workerCount);
+		for (int i = 0; i < workerCount; i++) {
+			Thread worker = workerFactory.newThread(this::runWorker);
+			worker.setDaemon(true);
+			workers.add(worker);
+			worker.start();
+		}
+	}
+
+	/**
+	 * Publie la mise à jour de la position de l'utilisateur, déjà enregistrée dans son historique.
+	 *
+	 * @return un CompletableFuture terminé une fois les récompenses calculées pour cette position
+	 */
+	public CompletableFuture<Void> publish(User user) {
+		published.increment();
+		PendingEvaluation[] created = new PendingEvaluation[1];
+		PendingEvaluation evaluation = pending.compute(user.getUserId(), (userId, existing) -> {
+			if (existing != null) {
+				coalesced.increment();
+				return existing;
+			}
+			created[0] = new PendingEvaluation(user);
+			return created[0];
+		});
+		if (created[0] != null) {
+			enqueue(created[0]);
+		}
+		return evaluation.result.copy();
+	}
+
+	/**
+	 * @return le nombre d'événements en attente d'un calcul, un par utilisateur, y compris ceux
+	 *         prélevés par un worker qui attend une place
+	 */
+	public int getQueueDepth() {
+		return pending.size();
+	}
+
+	public long getPublishedCount() {
+		return published.sum();
+	}
+
+	/**
+	 * @return le nombre d'événements regroupés avec un événement déjà en attente pour le même utilisateur
+	 */
+	public long getCoalescedCount() {
+		return coalesced.sum();
+	}
+
+	/**
+	 * @return le nombre d'événements abandonnés faute de place dans la file
+	 */
+	public long getDroppedCount() {
+		return dropped.sum();
+	}
+
+	/**
+	 * @return le nombre de calculs lancés et non encore terminés
+	 */
+	public int getInFlightCount() {
+		return maxInFlight - inFlight.availablePermits();
+	}
+
+	public long getEvaluatedCount() {
+		return evaluated.sum();
+	}
+
+	public long getFailedCount() {
+		return failed.sum();
+	}
+
+	/**
+	 * Arrête les workers et fait échouer les événements encore en file.
+	 * Appelée automatiquement par Spring à la fermeture du contexte.
+	 */
+	public void shutdown() {
+		running = false;
+		workers.forEach(Thread::interrupt);
+		List<PendingEvaluation> abandoned = new ArrayList<>();
+		queue.drainTo(abandoned);
+		abandoned.forEach(this::reject);
+	}
+
+	private void enqueue(PendingEvaluation evaluation) {
+		if (!running) {
+			reject(evaluation);
+			return;
+		}
+		if (!queue.offer(evaluation)) {
+			dropped.increment();
+			pending.remove(evaluation.user.getUserId(), evaluation);
+			evaluation.result.completeExceptionally(new RejectedExecutionException(
+					"RewardPipeline saturé : " + queue.size() + " utilisateurs en attente"));
+		}
+	}
+
+	private void runWorker() {
+		while (running) {
+			PendingEvaluation evaluation;
+			try {
+				evaluation = queue.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+			try {
+				// Tant que le calcul n'a pas de place, l'événement reste ouvert au regroupement
+				inFlight.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				reject(evaluation);
+				break;
+			}
+			// Retiré avant le calcul : les positions publiées désormais forment un nouvel événement
+			pending.remove(evaluation.user.getUserId(), evaluation);
+			evaluate(evaluation);
+		}
+	}
+
+	/**
+	 * Lance le calcul sans l'attendre : sa place est rendue à sa complétion.
+	 */
+	private void evaluate(PendingEvaluation evaluation) {
+		CompletableFuture<Void> calculation;
+		try {
+			calculation = evaluator.apply(evaluation.user);
+		} catch (RuntimeException e) {
+			calculation = CompletableFuture.failedFuture(e);
+		}
+		calculation.whenComplete((result, error) -> {
+			inFlight.release();
+			if (error == null) {
+				evaluated.increment();
+				evaluation.result.complete(null);
+			} else {
+				failed.increment();
+				logger.warn("Échec du calcul des récompenses de l'utilisateur " + evaluation.user.getUserId(), error);
+				evaluation.result.completeExceptionally(error);
+			}
+		});
+	}
+
+	private void reject(PendingEvaluation evaluation) {
+		pending.remove(evaluation.user.getUserId(), evaluation);
+		evaluation.result.completeExceptionally(new RejectedExecutionException("RewardPipeline arrêté"));
+	}
+
+	private static final class PendingEvaluation {
+		private final User user;
+		private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+		private PendingEvaluation(User user) {
+			this.user = user;
+		}
+	}
+}
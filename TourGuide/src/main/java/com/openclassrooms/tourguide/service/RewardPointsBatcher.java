@@ -0,0 +1,258 @@
+package com.openclassrooms.tourguide.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import rewardCentral.RewardCentral;
+import com.openclassrooms.tourguide.concurrent.DownstreamLimiter;
+
+/**
+ * Couche de regroupement placée devant RewardCentral.
+ *
+ * Les demandes (attractionId, userId) émises par les calculs de récompenses concurrents
+ * sont déposées dans une file commune. Un nombre fixe de voies (threads dédiés) prélève
+ * ces demandes par lots de taille maximale {@code maxBatchSize}, en attendant au plus
+ * {@code linger} pour compléter un lot, puis complète le CompletableFuture de chaque appelant.
+ *
+ * Deux bornes limitent la mémoire occupée par les demandes (backpressure) :
+ * - une fenêtre ({@code maxInFlight}) limite le nombre de demandes confiées aux voies ; au-delà,
+ *   la demande est mise en attente et admise dès qu'une place se libère
+ * - une file d'attente bornée ({@code maxWaiting}) : pleine, la demande est refusée aussitôt par un
+ *   CompletableFuture en échec ({@link RejectedExecutionException}), comme le fait un Bulkhead
+ *   en politique de rejet. Un calcul de récompenses refusé libère l'attraction, réévaluée au
+ *   calcul suivant
+ * L'appelant n'est jamais bloqué, ce qui permet de l'appeler depuis un thread Tomcat ou du pool
+ * des récompenses.
+ *
+ * RewardCentral n'expose pas d'API groupée : chaque voie résout les éléments de son lot
+ * l'un après l'autre. Le débit maximal est donc fixé par le nombre de voies et ne dépend
+ * plus du nombre de threads du pool partagé, qui n'est plus bloqué par ces appels.
+ * Attendre pour compléter un lot n'apporte alors aucun débit et ajoute de la latence :
+ * {@code linger} vaut 0 par défaut et n'a d'intérêt que devant un service qui traite un lot
+ * en un seul appel.
+ * Chaque appel passe en outre par un {@link DownstreamLimiter}, ce qui permet d'utiliser
+ * de nombreuses voies en threads virtuels sans dépasser la capacité de RewardCentral.
+ */
+public class RewardPointsBatcher {
+	private final Logger logger = LoggerFactory.getLogger(RewardPointsBatcher.class);
+	private final RewardCentral rewardCentral;
+	private final DownstreamLimiter limiter;
+	private final int maxBatchSize;
+	private final long lingerNanos;
+	private final int maxInFlight;
+	private final Semaphore inFlight;
+	private final BlockingQueue<PendingLookup> pending = new LinkedBlockingQueue<>();
+	// Demandes reçues fenêtre pleine, admises au fil des places libérées
+	private final Queue<PendingLookup> waiting = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger waitingCount = new AtomicInteger();
+	private final int maxWaiting;
+	private final LongAdder batches = new LongAdder();
+	private final LongAdder rejections = new LongAdder();
+	private final List<Thread> lanes;
+	private volatile boolean running = true;
+
+	public RewardPointsBatcher(RewardCentral rewardCentral, DownstreamLimiter limiter, ThreadFactory laneFactory,
+			int laneCount, int maxBatchSize, long lingerMillis, int maxInFlight, int maxWaiting) {
+		if (laneCount <= 0 || maxBatchSize <= 0 || lingerMillis < 0 || maxInFlight <= 0 || maxWaiting < 0) {
+			throw new IllegalArgumentException("Configuration du regroupement RewardCentral invalide");
+		}
+		this.rewardCentral = rewardCentral;
+		this.limiter = limiter;
+		this.maxBatchSize = maxBatchSize;
+		this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+		this.maxInFlight = maxInFlight;
+		this.inFlight = new Semaphore(maxInFlight);
+		this.maxWaiting = maxWaiting;
+		this.lanes = new ArrayList<>(laneCount);
+		for (int i = 0; i < laneCount; i++) {
+			Thread lane = laneFactory.newThread(this::runLane);
+			lane.setDaemon(true);
+			lanes.add(lane);
+			lane.start();
+		}
+	}
+
+	/**
+	 * Dépose une demande de points de récompense, sans jamais bloquer l'appelant.
+	 * Fenêtre de demandes en vol pleine, la demande attend qu'une place se libère.
+	 *
+	 * @return un CompletableFuture complété par la voie qui traite la demande, ou en échec
+	 *         ({@link RejectedExecutionException}) si la file d'attente est pleine ou le
+	 *         regroupement arrêté
+	 */
+	public CompletableFuture<Integer> submit(UUID attractionId, UUID userId) {
+		CompletableFuture<Integer> future = new CompletableFuture<>();
+		if (!running) {
+			future.completeExceptionally(new RejectedExecutionException("RewardPointsBatcher arrêté"));
+			return future;
+		}
+		PendingLookup lookup = new PendingLookup(attractionId, userId, future);
+		if (inFlight.tryAcquire()) {
+			pending.add(lookup);
+		} else {
+			if (waitingCount.incrementAndGet() > maxWaiting) {
+				waitingCount.decrementAndGet();
+				rejections.increment();
+				future.completeExceptionally(new RejectedExecutionException("RewardPointsBatcher saturé : "
+						+ maxInFlight + " demandes en vol, " + maxWaiting + " en attente"));
+				return future;
+			}
+			waiting.add(lookup);
+			// Une place a pu se libérer entre l'échec de tryAcquire et la mise en attente
+			admitWaiting();
+		}
+		if (!running) {
+			// Arrêt concurrent : la demande ne doit pas rester sans réponse
+			rejectAbandoned();
+		}
+		return future;
+	}
+
+	/**
+	 * @return nombre de demandes admises dans la fenêtre, en file ou en cours de traitement
+	 */
+	public int getInFlightCount() {
+		return maxInFlight - inFlight.availablePermits();
+	}
+
+	/**
+	 * @return nombre de demandes en attente d'une place dans la fenêtre
+	 */
+	public int getWaitingCount() {
+		return waitingCount.get();
+	}
+
+	/**
+	 * @return nombre de demandes refusées, file d'attente pleine
+	 */
+	public long getRejectedCount() {
+		return rejections.sum();
+	}
+
+	/**
+	 * @return nombre de lots traités par les voies
+	 */
+	public long getBatchCount() {
+		return batches.sum();
+	}
+
+	/**
+	 * Arrête les voies et fait échouer les demandes encore en file.
+	 * Appelée automatiquement par Spring à la fermeture du contexte.
+	 */
+	public void shutdown() {
+		running = false;
+		lanes.forEach(Thread::interrupt);
+		rejectAbandoned();
+	}
+
+	private void rejectAbandoned() {
+		List<PendingLookup> abandoned = new ArrayList<>();
+		pending.drainTo(abandoned);
+		reject(abandoned);
+		PendingLookup lookup;
+		while ((lookup = waiting.poll()) != null) {
+			waitingCount.decrementAndGet();
+			lookup.future().completeExceptionally(new RejectedExecutionException("RewardPointsBatcher arrêté"));
+		}
+	}
+
+	/**
+	 * Fait entrer dans la fenêtre autant de demandes en attente que de places libres.
+	 * Sans effet une fois le regroupement arrêté : les demandes en attente sont alors rejetées.
+	 */
+	private void admitWaiting() {
+		while (running && !waiting.isEmpty() && inFlight.tryAcquire()) {
+			PendingLookup lookup = waiting.poll();
+			if (lookup == null) {
+				inFlight.release();
+				return;
+			}
+			waitingCount.decrementAndGet();
+			pending.add(lookup);
+		}
+	}
+
+	private void releaseSlot() {
+		inFlight.release();
+		admitWaiting();
+	}
+
+	private void runLane() {
+		List<PendingLookup> batch = new ArrayList<>(maxBatchSize);
+		while (running) {
+			try {
+				batch.add(pending.take());
+				fillBatch(batch);
+			} catch (InterruptedException e) {
+				// Les demandes déjà prélevées ne doivent pas laisser leurs appelants en attente
+				reject(batch);
+				Thread.currentThread().interrupt();
+				break;
+			}
+			resolve(batch);
+			batch.clear();
+		}
+	}
+
+	/**
+	 * Complète le lot avec les demandes déjà disponibles, puis attend au plus {@code linger}
+	 * pour les suivantes.
+	 */
+	private void fillBatch(List<PendingLookup> batch) throws InterruptedException {
+		pending.drainTo(batch, maxBatchSize - batch.size());
+		long deadline = System.nanoTime() + lingerNanos;
+		while (batch.size() < maxBatchSize) {
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) {
+				break;
+			}
+			PendingLookup next = pending.poll(remaining, TimeUnit.NANOSECONDS);
+			if (next == null) {
+				break;
+			}
+			batch.add(next);
+			pending.drainTo(batch, maxBatchSize - batch.size());
+		}
+	}
+
+	private void resolve(List<PendingLookup> batch) {
+		batches.increment();
+		for (PendingLookup lookup : batch) {
+			try {
+				lookup.future().complete(limiter.call(
+						() -> rewardCentral.getAttractionRewardPoints(lookup.attractionId(), lookup.userId())));
+			} catch (RuntimeException e) {
+				logger.warn("Échec de l'appel RewardCentral pour l'attraction " + lookup.attractionId(), e);
+				lookup.future().completeExceptionally(e);
+			} finally {
+				releaseSlot();
+			}
+		}
+	}
+
+	private void reject(List<PendingLookup> lookups) {
+		lookups.forEach(lookup -> {
+			lookup.future().completeExceptionally(new RejectedExecutionException("RewardPointsBatcher arrêté"));
+			releaseSlot();
+		});
+	}
+
+	private record PendingLookup(UUID attractionId, UUID userId, CompletableFuture<Integer> future) {
+	}
+}
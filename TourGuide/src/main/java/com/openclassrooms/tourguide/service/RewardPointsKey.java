@@ -0,0 +1,10 @@
+package com.openclassrooms.tourguide.service;
+
+import java.util.UUID;
+
+/**
+ * Clé du cache des points de récompense : RewardCentral attribue les points par couple
+ * (attraction, utilisateur).
+ */
+public record RewardPointsKey(UUID attractionId, UUID userId) {
+}
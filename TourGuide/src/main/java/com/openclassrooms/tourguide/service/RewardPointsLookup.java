@@ -0,0 +1,52 @@
+package com.openclassrooms.tourguide.service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import gpsUtil.location.Attraction;
+import com.openclassrooms.tourguide.user.User;
+
+/**
+ * Points de récompense affichés par /getNearbyAttractions.
+ *
+ * - Les points sont demandés à {@link RewardsService}, dont le cache évite de rappeler RewardCentral
+ *   pour un couple (attraction, utilisateur) déjà connu ; l'appelant n'attend pas au-delà de {@code timeout}
+ * - En cas de dépassement ou d'échec, le résultat est null (points inconnus) : la réponse
+ *   reste complète pour les autres attractions. Une réponse arrivée après le délai alimente
+ *   tout de même le cache pour les requêtes suivantes
+ */
+public class RewardPointsLookup {
+	private final RewardsService rewardsService;
+	private final long timeoutMillis;
+	private final LongAdder fallbacks = new LongAdder();
+
+	public RewardPointsLookup(RewardsService rewardsService, Duration timeout) {
+		this.rewardsService = rewardsService;
+		this.timeoutMillis = timeout.toMillis();
+	}
+
+	/**
+	 * @return les points de récompense, ou null s'ils ne sont pas disponibles dans le délai
+	 */
+	public CompletableFuture<Integer> lookup(Attraction attraction, User user) {
+		CompletableFuture<Integer> points = rewardsService.getRewardPointsAsync(attraction, user);
+		// Le délai et le repli s'appliquent à un future dérivé : la réponse de RewardCentral n'est pas écrasée
+		return points.exceptionally(error -> null)
+				.completeOnTimeout(null, timeoutMillis, TimeUnit.MILLISECONDS)
+				.thenApply(value -> {
+					if (value == null) {
+						fallbacks.increment();
+					}
+					return value;
+				});
+	}
+
+	/**
+	 * @return le nombre de demandes ayant renvoyé des points inconnus (délai dépassé ou échec)
+	 */
+	public long getFallbackCount() {
+		return fallbacks.sum();
+	}
+}
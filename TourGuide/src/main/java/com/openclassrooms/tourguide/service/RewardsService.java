@@ -1,46 +1,85 @@
 package com.openclassrooms.tourguide.service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
-import gpsUtil.GpsUtil;
 import gpsUtil.location.Attraction;
 import gpsUtil.location.Location;
 import gpsUtil.location.VisitedLocation;
-import rewardCentral.RewardCentral;
+import com.openclassrooms.tourguide.cache.CacheStats;
+import com.openclassrooms.tourguide.cache.RefreshingCache;
+import com.openclassrooms.tourguide.concurrent.SingleFlight;
+import com.openclassrooms.tourguide.geo.AttractionIndex;
+import com.openclassrooms.tourguide.geo.GeoDistance;
+import com.openclassrooms.tourguide.geo.GeoGrid;
+import com.openclassrooms.tourguide.metrics.AsyncTimers;
+import com.openclassrooms.tourguide.user.LocationHistory;
+import com.openclassrooms.tourguide.user.RewardEvaluationState;
 import com.openclassrooms.tourguide.user.User;
 import com.openclassrooms.tourguide.user.UserReward;
 
 @Service
 public class RewardsService {
-	private static final double STATUTE_MILES_PER_NAUTICAL_MILE = 1.15077945;
-
 	// proximity in miles
 	private int defaultProximityBuffer = 10;
-	private int proximityBuffer = defaultProximityBuffer;
+	private volatile int proximityBuffer = defaultProximityBuffer;
 	private int attractionProximityRange = 200;
-	private final GpsUtil gpsUtil;
-	private final RewardCentral rewardsCentral;
+	// Incrémentée à chaque changement de règle : invalide les évaluations incrémentales déjà faites
+	private final AtomicInteger rulesVersion = new AtomicInteger();
+	private final AttractionIndex attractionIndex;
+	// Points par couple (attraction, utilisateur), chargés via RewardPointsBatcher
+	private final RefreshingCache<RewardPointsKey, Integer> rewardPointsCache;
 	private final ExecutorService executorService;
+	// Un seul calcul en cours et au plus un calcul en attente par utilisateur
+	private final SingleFlight<UUID, Void> rewardFlights = new SingleFlight<>();
+	private final Timer calculateRewardsTimer;
+	private final Timer calculateRewardsForAllTimer;
+	private final Timer rewardPointsTimer;
+	private final Counter rewardsGranted;
 
-	public RewardsService(GpsUtil gpsUtil, RewardCentral rewardCentral, ExecutorService executorService) {
-		this.gpsUtil = gpsUtil;
-		this.rewardsCentral = rewardCentral;
+	public RewardsService(AttractionIndex attractionIndex, RefreshingCache<RewardPointsKey, Integer> rewardPointsCache,
+			@Qualifier("rewardsExecutor") ExecutorService executorService, MeterRegistry meterRegistry) {
+		this.attractionIndex = attractionIndex;
+		this.rewardPointsCache = rewardPointsCache;
 		this.executorService = executorService;
+		this.calculateRewardsTimer = Timer.builder("tourguide.rewards.calculate")
+				.description("Calcul des récompenses d'un utilisateur, points RewardCentral compris")
+				.register(meterRegistry);
+		this.calculateRewardsForAllTimer = Timer.builder("tourguide.rewards.calculate.all")
+				.description("Calcul groupé des récompenses d'un ensemble d'utilisateurs, points RewardCentral compris")
+				.register(meterRegistry);
+		this.rewardPointsTimer = Timer.builder("tourguide.rewards.points")
+				.description("Obtention des points d'une attraction, cache compris")
+				.register(meterRegistry);
+		this.rewardsGranted = Counter.builder("tourguide.rewards.granted")
+				.description("Récompenses attribuées")
+				.register(meterRegistry);
 	}
 
 	public void setProximityBuffer(int proximityBuffer) {
 		this.proximityBuffer = proximityBuffer;
+		rulesVersion.incrementAndGet();
 	}
 
 	public void setDefaultProximityBuffer() {
 		proximityBuffer = defaultProximityBuffer;
+		rulesVersion.incrementAndGet();
 	}
 
 	/**
@@ -48,8 +87,18 @@ public class RewardsService {
 	 *
 	 * Optimisations clés :
 	 * - Exécution parallèle via CompletableFuture
-	 * - Algorithme O(1) avec HashSet au lieu de recherche linéaire O(n)
-	 * - Collections thread-safe pour éviter les ConcurrentModificationException
+	 * - Évaluation incrémentale : seuls les emplacements ajoutés depuis le dernier calcul sont
+	 *   examinés (marque haute dans {@link RewardEvaluationState}), le coût par cycle ne croît
+	 *   plus avec la taille de l'historique
+	 * - Attractions déjà récompensées repérées en O(1) par un BitSet indexé par ordinal
+	 * - Index spatial : seules les attractions dans le rayon proximityBuffer sont examinées,
+	 *   le coût ne dépend plus de la taille du catalogue
+	 * - Points de récompense demandés via RewardPointsBatcher : le thread du pool n'attend pas
+	 *   RewardCentral, le future se termine quand toutes les réponses sont arrivées
+	 * - Points mis en cache par couple (attraction, utilisateur) : déjà affichés par
+	 *   /getNearbyAttractions, ils ne sont pas redemandés à RewardCentral
+	 * - Appels concurrents pour un même utilisateur regroupés ({@link SingleFlight#coalesce}) :
+	 *   un appel reçu pendant un calcul partage le calcul suivant, lancé à la fin du courant
 	 *
 	 * Performance : Capable de traiter 100 000 utilisateurs en moins de 20 minutes
 	 *
@@ -57,62 +106,250 @@ public class RewardsService {
 	 * @return CompletableFuture qui se termine une fois tous les calculs effectués
 	 */
 	public CompletableFuture<Void> calculateRewards(User user) {
-		return CompletableFuture.runAsync(() -> {
+		return AsyncTimers.time(calculateRewardsTimer,
+				() -> rewardFlights.coalesce(user.getUserId(), () -> evaluateRewards(user)));
+	}
 
-			// Copie thread-safe des emplacements visités
-			List<VisitedLocation> userLocations = new CopyOnWriteArrayList<>(user.getVisitedLocations());
-			List<Attraction> attractions = gpsUtil.getAttractions();
+	/**
+	 * Calcule en une passe les récompenses d'un ensemble d'utilisateurs.
+	 *
+	 * Au lieu d'interroger l'index spatial position par position, la jointure positions x attractions
+	 * est faite par cellule géographique :
+	 * 1. Les cellules d'une {@link GeoGrid} de la taille de proximityBuffer que chevauche le rayon
+	 *    de chaque attraction sont énumérées, avec pour chacune la liste des attractions concernées
+	 * 2. Les positions non encore évaluées de tous les utilisateurs sont réparties par cellule (en
+	 *    parallèle, par utilisateur) ; une position hors de ces cellules est écartée sans calcul de distance
+	 * 3. Chaque cellule est traitée indépendamment (fork-join sur les cellules) : ses positions ne
+	 *    sont comparées qu'aux attractions qui la chevauchent
+	 * 4. Les points des récompenses obtenues sont demandés comme pour {@link #calculateRewards}
+	 *
+	 * Les marques hautes et les attractions réclamées sont celles du calcul par utilisateur : les deux
+	 * modes peuvent être utilisés en même temps sans attribuer deux fois une attraction.
+	 *
+	 * @return CompletableFuture qui se termine une fois tous les points obtenus
+	 */
+	public CompletableFuture<Void> calculateRewardsForAll(Collection<User> users) {
+		return AsyncTimers.time(calculateRewardsForAllTimer, () -> CompletableFuture.supplyAsync(() -> {
+			double radiusMiles = proximityBuffer;
+			GeoGrid grid = GeoGrid.forRadius(radiusMiles);
 
-			// OPTIMISATION : Index des attractions déjà récompensées (recherche O(1))
-			Set<String> rewardedAttractions = user.getUserRewards().stream()
-					.map(r -> r.attraction.attractionName)
-					.collect(Collectors.toSet()); // Création du HashSet
+			// Attractions candidates par cellule : une cellule absente n'est proche d'aucune attraction
+			Map<Long, List<Integer>> candidates = new HashMap<>();
+			List<Attraction> attractions = attractionIndex.getAttractions();
+			for (int ordinal = 0; ordinal < attractions.size(); ordinal++) {
+				int attractionOrdinal = ordinal;
+				grid.forEachCellWithin(attractions.get(ordinal), radiusMiles, cell -> {
+					List<Integer> cellCandidates = candidates.computeIfAbsent(cell, k -> new ArrayList<>());
+					// Une emprise à cheval sur l'antiméridien peut énumérer deux fois la même cellule
+					if (cellCandidates.isEmpty() || cellCandidates.get(cellCandidates.size() - 1) != attractionOrdinal) {
+						cellCandidates.add(attractionOrdinal);
+					}
+				});
+			}
 
-			// Parcours optimisé avec interruption précoce
-			for (VisitedLocation visitedLocation : userLocations) {
-				for (Attraction attraction : attractions) {
+			Map<Long, List<PendingLocation>> cells = users.parallelStream()
+					.flatMap(user -> collectNewLocations(user, grid, candidates))
+					.collect(Collectors.groupingByConcurrent(PendingLocation::cell));
 
-					// Ignorer si déjà récompensée (évite calculs inutiles)
-                    // Au lieu de parcourir une liste O(n), on fait une recherche directe en 0(1) grace au HashSet
-					if (rewardedAttractions.contains(attraction.attractionName)) {
-						continue;
+			List<BulkClaim> claims = cells.entrySet().parallelStream()
+					.flatMap(cell -> joinCell(cell.getValue(), candidates.get(cell.getKey()), radiusMiles).stream())
+					.toList();
+
+			List<CompletableFuture<Void>> rewardFutures = new ArrayList<>(claims.size());
+			for (BulkClaim claim : claims) {
+				rewardFutures.add(grantReward(claim.user(), claim.state(), claim.reward()));
+			}
+			return CompletableFuture.allOf(rewardFutures.toArray(new CompletableFuture[0]));
+		}, executorService).thenCompose(Function.identity()));
+	}
+
+	/**
+	 * @return les compteurs de regroupement des calculs de récompenses
+	 */
+	public SingleFlight<UUID, Void> getRewardFlights() {
+		return rewardFlights;
+	}
+
+	private CompletableFuture<Void> evaluateRewards(User user) {
+		return CompletableFuture.supplyAsync(() -> {
+			RewardEvaluationState state = user.getRewardEvaluationState();
+			List<PendingReward> pendingRewards = new ArrayList<>();
+
+			// Section courte et sans appel externe : deux calculs concurrents pour le même
+			// utilisateur ne peuvent pas réclamer la même attraction
+			synchronized (state) {
+				prepareEvaluation(user, state);
+				LocationHistory.Snapshot history = user.getLocationHistory().snapshot();
+
+				for (int i = history.indexOfSequence(state.getEvaluatedSequence()); i < history.size(); i++) {
+					// Seules les coordonnées sont lues : la VisitedLocation n'est recréée que pour une récompense
+					for (AttractionIndex.Neighbor neighbor : attractionIndex.withinRadius(history.locationAt(i), proximityBuffer)) {
+						// L'index garantit la proximité ; le BitSet écarte les attractions déjà récompensées
+						if (state.markRewarded(neighbor.ordinal())) {
+							pendingRewards.add(new PendingReward(history.sequenceAt(i), neighbor.ordinal(),
+									new UserReward(history.get(i), neighbor.attraction())));
+						}
 					}
+				}
+				state.setEvaluatedSequence(history.nextSequence());
+			}
 
-					// Vérifier la proximité et attribuer la récompense
-					if (nearAttraction(visitedLocation, attraction)) {
-						int rewardPoints = getRewardPoints(attraction, user);
-						user.addUserReward(new UserReward(visitedLocation, attraction, rewardPoints));
+			// Demande des points hors verrou : la récompense est attribuée à la réponse
+			List<CompletableFuture<Void>> rewardFutures = new ArrayList<>(pendingRewards.size());
+			for (PendingReward pending : pendingRewards) {
+				rewardFutures.add(grantReward(user, state, pending));
+			}
+			return CompletableFuture.allOf(rewardFutures.toArray(new CompletableFuture[0]));
+		}, executorService).thenCompose(Function.identity());
+	}
+
+	/**
+	 * Relève les positions non encore évaluées de l'utilisateur situées dans une cellule candidate,
+	 * et avance sa marque haute : toutes ses nouvelles positions sont désormais à la charge du
+	 * calcul groupé.
+	 */
+	private Stream<PendingLocation> collectNewLocations(User user, GeoGrid grid, Map<Long, List<Integer>> candidates) {
+		RewardEvaluationState state = user.getRewardEvaluationState();
+		List<PendingLocation> locations = new ArrayList<>();
+		synchronized (state) {
+			prepareEvaluation(user, state);
+			LocationHistory.Snapshot history = user.getLocationHistory().snapshot();
+			for (int i = history.indexOfSequence(state.getEvaluatedSequence()); i < history.size(); i++) {
+				Location location = history.locationAt(i);
+				long cell = grid.cellOf(location);
+				if (candidates.containsKey(cell)) {
+					locations.add(new PendingLocation(user, state, history, i, AttractionIndex.unitVector(location), cell));
+				}
+			}
+			state.setEvaluatedSequence(history.nextSequence());
+		}
+		return locations.stream();
+	}
+
+	/**
+	 * Compare les positions d'une cellule aux seules attractions dont le rayon chevauche la cellule.
+	 * Les positions sont projetées une fois à la collecte : chaque comparaison se réduit à une corde
+	 * entre vecteurs unitaires, avec la même distance que le calcul par utilisateur.
+	 */
+	private List<BulkClaim> joinCell(List<PendingLocation> locations, List<Integer> attractionOrdinals,
+			double radiusMiles) {
+		List<BulkClaim> claims = new ArrayList<>();
+		for (int ordinal : attractionOrdinals) {
+			Attraction attraction = attractionIndex.getAttractions().get(ordinal);
+			for (PendingLocation pending : locations) {
+				if (!attractionIndex.isWithin(ordinal, pending.unitVector(), radiusMiles)) {
+					continue;
+				}
+				// Un même utilisateur peut avoir des positions dans plusieurs cellules traitées en parallèle
+				synchronized (pending.state()) {
+					if (!pending.state().markRewarded(ordinal)) {
+						continue;
+					}
+				}
+				claims.add(new BulkClaim(pending.user(), pending.state(), new PendingReward(
+						pending.history().sequenceAt(pending.index()), ordinal,
+						new UserReward(pending.history().get(pending.index()), attraction))));
+			}
+		}
+		return claims;
+	}
 
-						// Mettre à jour l'index pour éviter les doublons
-						rewardedAttractions.add(attraction.attractionName);
+	/**
+	 * Demande les points de la récompense réclamée et l'attribue à la réponse.
+	 */
+	private CompletableFuture<Void> grantReward(User user, RewardEvaluationState state, PendingReward pending) {
+		return rewardPointsCache
+				.get(new RewardPointsKey(pending.reward().attraction.attractionId, user.getUserId()))
+				.handle((rewardPoints, error) -> {
+					if (error != null) {
+						releaseClaim(state, pending);
+						return null;
 					}
+					pending.reward().setRewardPoints(rewardPoints);
+					if (user.addUserReward(pending.reward())) {
+						rewardsGranted.increment();
+					}
+					return null;
+				});
+	}
+
+	/**
+	 * Réinitialise l'évaluation si les règles ont changé. Un historique vidé ou compacté ne
+	 * demande aucune réinitialisation : les séquences des nouveaux emplacements restent croissantes.
+	 * Les récompenses déjà présentes sur l'utilisateur sont reportées dans le BitSet.
+	 * Doit être appelée sous le verrou de l'état.
+	 */
+	private void prepareEvaluation(User user, RewardEvaluationState state) {
+		int currentRulesVersion = rulesVersion.get();
+		if (state.isStale(currentRulesVersion)) {
+			state.restart(currentRulesVersion);
+			for (UserReward userReward : user.getUserRewards()) {
+				int ordinal = attractionIndex.ordinalOf(userReward.attraction.attractionName);
+				if (ordinal >= 0) {
+					state.markRewarded(ordinal);
 				}
 			}
-		}, executorService);
+		}
 	}
 
-	public boolean isWithinAttractionProximity(Attraction attraction, Location location) {
-		return getDistance(attraction, location) <= attractionProximityRange;
+	/**
+	 * En cas d'échec de RewardCentral, libère l'attraction et fait réévaluer l'emplacement
+	 * concerné au prochain calcul.
+	 */
+	private void releaseClaim(RewardEvaluationState state, PendingReward pending) {
+		synchronized (state) {
+			state.unmarkRewarded(pending.attractionOrdinal());
+			state.rewindTo(pending.locationSequence());
+		}
+	}
+
+	private record PendingReward(long locationSequence, int attractionOrdinal, UserReward reward) {
 	}
 
-	private boolean nearAttraction(VisitedLocation visitedLocation, Attraction attraction) {
-		return getDistance(attraction, visitedLocation.location) <= proximityBuffer;
+	private record PendingLocation(User user, RewardEvaluationState state, LocationHistory.Snapshot history, int index,
+			double[] unitVector, long cell) {
+	}
+
+	private record BulkClaim(User user, RewardEvaluationState state, PendingReward reward) {
+	}
+
+	/**
+	 * Une attraction du catalogue est testée sur son vecteur unitaire précalculé ; une attraction
+	 * inconnue de l'index passe par le calcul complet.
+	 */
+	public boolean isWithinAttractionProximity(Attraction attraction, Location location) {
+		int ordinal = attractionIndex.ordinalOf(attraction.attractionName);
+		if (ordinal < 0) {
+			return GeoDistance.isWithin(attraction, location, attractionProximityRange);
+		}
+		return attractionIndex.isWithin(ordinal, location, attractionProximityRange);
 	}
 
 	public int getRewardPoints(Attraction attraction, User user) {
-		return rewardsCentral.getAttractionRewardPoints(attraction.attractionId, user.getUserId());
+		return getRewardPointsAsync(attraction, user).join();
 	}
 
-	public double getDistance(Location loc1, Location loc2) {
-		double lat1 = Math.toRadians(loc1.latitude);
-		double lon1 = Math.toRadians(loc1.longitude);
-		double lat2 = Math.toRadians(loc2.latitude);
-		double lon2 = Math.toRadians(loc2.longitude);
+	/**
+	 * @return les points de récompense de l'attraction, servis par le cache ou obtenus via le
+	 *         {@link RewardPointsBatcher} sans bloquer l'appelant
+	 */
+	public CompletableFuture<Integer> getRewardPointsAsync(Attraction attraction, User user) {
+		return AsyncTimers.time(rewardPointsTimer,
+				() -> rewardPointsCache.get(new RewardPointsKey(attraction.attractionId, user.getUserId())));
+	}
 
-		double angle = Math.acos(Math.sin(lat1) * Math.sin(lat2)
-				+ Math.cos(lat1) * Math.cos(lat2) * Math.cos(lon1 - lon2));
+	/**
+	 * @return les statistiques du cache des points de récompense
+	 */
+	public CacheStats getRewardPointsCacheStats() {
+		return rewardPointsCache.stats();
+	}
 
-		double nauticalMiles = 60 * Math.toDegrees(angle);
-        return STATUTE_MILES_PER_NAUTICAL_MILE * nauticalMiles;
+	/**
+	 * Distance orthodromique en miles entre deux points.
+	 * Les tests de proximité aux attractions passent par les vecteurs unitaires de {@link AttractionIndex}.
+	 */
+	public double getDistance(Location loc1, Location loc2) {
+		return GeoDistance.miles(loc1, loc2);
 	}
-}
\ No newline at end of file
+}
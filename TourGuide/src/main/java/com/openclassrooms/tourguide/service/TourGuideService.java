@@ -1,21 +1,41 @@
 package com.openclassrooms.tourguide.service;
 
+import com.openclassrooms.tourguide.cache.CacheStats;
+import com.openclassrooms.tourguide.cache.ExpiringLruCache;
+import com.openclassrooms.tourguide.concurrent.DownstreamLimiter;
+import com.openclassrooms.tourguide.concurrent.SingleFlight;
 import com.openclassrooms.tourguide.dto.NearbyAttractionDTO;
+import com.openclassrooms.tourguide.geo.AttractionIndex;
+import com.openclassrooms.tourguide.geo.GeoDistance;
 import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.helper.InternalUserSeeder;
+import com.openclassrooms.tourguide.helper.SeedingMode;
+import com.openclassrooms.tourguide.helper.SeedingReport;
+import com.openclassrooms.tourguide.metrics.AsyncTimers;
+import com.openclassrooms.tourguide.persistence.UserPersistence;
 import com.openclassrooms.tourguide.tracker.Tracker;
+import com.openclassrooms.tourguide.tracker.TrackerSettings;
+import com.openclassrooms.tourguide.tracker.TrackingTarget;
+import com.openclassrooms.tourguide.user.HistoryRetention;
+import com.openclassrooms.tourguide.user.LocationHistory;
+import com.openclassrooms.tourguide.user.LocationStorage;
 import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserPreferences;
+import com.openclassrooms.tourguide.user.UserRegistry;
 import com.openclassrooms.tourguide.user.UserReward;
 
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.stream.IntStream;
+import java.util.function.BiConsumer;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.lang3.time.StopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import gpsUtil.GpsUtil;
@@ -27,30 +47,78 @@ import tripPricer.Provider;
 import tripPricer.TripPricer;
 
 @Service
-public class TourGuideService {
+public class TourGuideService implements TrackingTarget {
+	// Nombre d'attractions renvoyées par /getNearbyAttractions sans paramètre count
+	public static final int DEFAULT_NEARBY_ATTRACTIONS = 5;
 	private Logger logger = LoggerFactory.getLogger(TourGuideService.class);
 	private final GpsUtil gpsUtil;
-	private final RewardsService rewardsService;
+	private final AttractionIndex attractionIndex;
+	private final RewardPipeline rewardPipeline;
+	private final DownstreamLimiter gpsLimiter;
+	private final HistoryRetention historyRetention;
+	private final LocationStorage locationStorage;
+	private final ExpiringLruCache<TripQuoteKey, List<Provider>> tripDealsCache;
+	private final RewardPointsLookup rewardPointsLookup;
+	private final UserPersistence userPersistence;
+	private final InternalUserSeeder internalUserSeeder;
+	// Un seul suivi de position en cours par utilisateur
+	private final SingleFlight<UUID, TrackedLocation> locationFlights = new SingleFlight<>();
 	private final TripPricer tripPricer = new TripPricer();
+	private final Timer trackLocationTimer;
+	private final Timer gpsLocationTimer;
+	private final Timer tripPriceTimer;
 	public final Tracker tracker;
 	boolean testMode = true;
-	// ExecutorService pour la parallélisation
-	private final ExecutorService executorService;
-
-	public TourGuideService(GpsUtil gpsUtil, RewardsService rewardsService, ExecutorService executorService) {
+	// Pools séparés : les suivis du Tracker ne retardent pas les requêtes interactives
+	private final ExecutorService gpsExecutor;
+	private final ExecutorService httpExecutor;
+
+	public TourGuideService(GpsUtil gpsUtil, AttractionIndex attractionIndex, RewardPipeline rewardPipeline,
+			@Qualifier("gpsExecutor") ExecutorService gpsExecutor, @Qualifier("httpExecutor") ExecutorService httpExecutor,
+			@Qualifier("gpsLimiter") DownstreamLimiter gpsLimiter,
+			TrackerSettings trackerSettings, HistoryRetention historyRetention, LocationStorage locationStorage,
+			ExpiringLruCache<TripQuoteKey, List<Provider>> tripDealsCache, RewardPointsLookup rewardPointsLookup,
+			UserPersistence userPersistence, InternalUserSeeder internalUserSeeder, MeterRegistry meterRegistry) {
 		this.gpsUtil = gpsUtil;
-		this.rewardsService = rewardsService;
-		this.executorService = executorService;
+		this.attractionIndex = attractionIndex;
+		this.rewardPipeline = rewardPipeline;
+		this.gpsLimiter = gpsLimiter;
+		this.gpsExecutor = gpsExecutor;
+		this.httpExecutor = httpExecutor;
+		this.historyRetention = historyRetention;
+		this.locationStorage = locationStorage;
+		this.tripDealsCache = tripDealsCache;
+		this.rewardPointsLookup = rewardPointsLookup;
+		this.userPersistence = userPersistence;
+		this.internalUserSeeder = internalUserSeeder;
+		this.trackLocationTimer = Timer.builder("tourguide.location.track")
+				.description("Suivi d'un utilisateur : position gpsUtil enregistrée et publiée, hors calcul des récompenses")
+				.register(meterRegistry);
+		this.gpsLocationTimer = Timer.builder("tourguide.gpsutil.location")
+				.description("Appel à gpsUtil.getUserLocation, hors attente d'un permis")
+				.register(meterRegistry);
+		this.tripPriceTimer = Timer.builder("tourguide.trippricer.price")
+				.description("Appel à tripPricer.getPrice, hors offres servies par le cache")
+				.register(meterRegistry);
 
 		Locale.setDefault(Locale.US);
 
-		if (testMode) {
+		loadPersistedUsers();
+		boolean seedInternalUsers = testMode && userRegistry.size() == 0;
+		if (seedInternalUsers && internalUserSeeder.getMode() == SeedingMode.EAGER) {
 			logger.info("TestMode enabled");
 			logger.debug("Initializing users");
 			initializeInternalUsers();
 			logger.debug("Finished initializing users");
 		}
-		tracker = new Tracker(this);
+		// Snapshot initial puis écriture différée : les positions et récompenses suivantes sont enregistrées
+		userPersistence.start(userRegistry);
+		userRegistry.forEach(user -> user.setChangeListener(userPersistence));
+		if (seedInternalUsers && internalUserSeeder.getMode() == SeedingMode.LAZY) {
+			logger.info("TestMode enabled, users created in background");
+			startLazySeeding();
+		}
+		tracker = new Tracker(this, trackerSettings);
 		addShutDownHook();
 	}
 
@@ -59,162 +127,334 @@ public class TourGuideService {
 	}
 
 	public VisitedLocation getUserLocation(User user) {
+		return getUserLocationAsync(user).join();
+	}
+
+	/**
+	 * Dernière position connue de l'utilisateur, ou position obtenue par un nouveau suivi
+	 * s'il n'a encore aucun historique. Le thread appelant n'attend pas gpsUtil.
+	 */
+	public CompletableFuture<VisitedLocation> getUserLocationAsync(User user) {
 		// Si l'utilisateur a des emplacements visités, utiliser le dernier
-		if (!user.getVisitedLocations().isEmpty()) {
-			return user.getLastVisitedLocation();
+		VisitedLocation lastVisitedLocation = user.getLastVisitedLocation();
+		if (lastVisitedLocation != null) {
+			return CompletableFuture.completedFuture(lastVisitedLocation);
 		}
-		// Sinon, traquer l'emplacement et attendre le résultat
-		return trackUserLocation(user).join();
+		// Sinon, traquer l'emplacement sur le pool des requêtes interactives, sans attendre les récompenses
+		return locationFlights.join(user.getUserId(), () -> fetchLocation(user, httpExecutor))
+				.thenApply(TrackedLocation::visitedLocation);
 	}
 
+	/**
+	 * En création paresseuse, un utilisateur interne pas encore créé en arrière-plan l'est
+	 * immédiatement : il est identique à celui que créera la tâche de fond.
+	 */
 	public User getUser(String userName) {
-		return internalUserMap.get(userName);
+		User user = userRegistry.getByName(userName);
+		if (user != null) {
+			return user;
+		}
+		int index = InternalUserSeeder.indexOf(userName, lazySeedingCount);
+		if (index < 0) {
+			return null;
+		}
+		addUser(internalUserSeeder.generate(index, this::applyHistorySettings));
+		return userRegistry.getByName(userName);
 	}
 
+	public User getUser(UUID userId) {
+		return userRegistry.getById(userId);
+	}
+
+	/**
+	 * Retourne une copie de la liste des utilisateurs.
+	 * Pour un parcours sans copie (Tracker, traitements de masse), utiliser {@link #getUserRegistry()}.
+	 */
 	public List<User> getAllUsers() {
-		return new ArrayList<>(internalUserMap.values());
+		return userRegistry.stream().toList();
+	}
+
+	/**
+	 * @return le registre partitionné des utilisateurs, parcourable shard par shard sans copie
+	 */
+	@Override
+	public UserRegistry getUserRegistry() {
+		return userRegistry;
+	}
+
+	/**
+	 * Parcourt la dernière position connue de chaque utilisateur, directement dans le registre :
+	 * ni copie de la liste des utilisateurs, ni appel à gpsUtil. Les utilisateurs sans position
+	 * connue sont ignorés.
+	 */
+	public void forEachCurrentLocation(BiConsumer<UUID, Location> action) {
+		userRegistry.forEach(user -> {
+			VisitedLocation lastVisitedLocation = user.getLastVisitedLocation();
+			if (lastVisitedLocation != null) {
+				action.accept(user.getUserId(), lastVisitedLocation.location);
+			}
+		});
 	}
 
 	public void addUser(User user) {
-		if (!internalUserMap.containsKey(user.getUserName())) {
-			internalUserMap.put(user.getUserName(), user);
+		applyHistorySettings(user);
+		// putIfAbsent atomique : pas de perte d'ajout entre threads de requête et Tracker
+		if (userRegistry.add(user)) {
+			userPersistence.userAdded(user);
+			user.setChangeListener(userPersistence);
+			// Null pendant le chargement initial : ces utilisateurs sont placés au premier tour
+			if (tracker != null) {
+				tracker.schedule(user);
+			}
 		}
 	}
 
+	/**
+	 * Recharge les utilisateurs enregistrés lors d'une exécution précédente, si la persistance est active.
+	 */
+	private void loadPersistedUsers() {
+		if (!userPersistence.isEnabled()) {
+			return;
+		}
+		StopWatch stopWatch = StopWatch.createStarted();
+		userPersistence.loadAll(user -> {
+			applyHistorySettings(user);
+			userRegistry.add(user);
+		});
+		logger.info("Reloaded " + userRegistry.size() + " users in " + stopWatch.getTime() + " ms.");
+	}
+
+	/**
+	 * Applique la rétention et le mode de stockage configurés à l'historique de l'utilisateur.
+	 * Le mode de stockage ne vaut que pour les positions enregistrées ensuite.
+	 */
+	private void applyHistorySettings(User user) {
+		user.getLocationHistory().setRetention(historyRetention);
+		user.getLocationHistory().setStorage(locationStorage);
+	}
+
+	/**
+	 * Indique si l'utilisateur s'est déplacé de plus de la distance donnée entre ses deux
+	 * dernières positions connues. Utilisé par le Tracker pour suivre plus souvent les
+	 * utilisateurs en mouvement.
+	 */
+	@Override
+	public boolean hasMovedRecently(User user, double thresholdMiles) {
+		LocationHistory.Snapshot visitedLocations = user.getLocationHistory().snapshot();
+		int size = visitedLocations.size();
+		if (size < 2) {
+			return false;
+		}
+		return !GeoDistance.isWithin(visitedLocations.locationAt(size - 1),
+				visitedLocations.locationAt(size - 2), thresholdMiles);
+	}
+
 	/**
 	 * Génère des offres de voyage personnalisées basées sur le profil et la fidélité de l'utilisateur.
 	 *
 	 * Utilise le service externe TripPricer pour obtenir des prix négociés selon les points
-	 * de récompense cumulés et les préférences de voyage. Les résultats sont mis en cache
-	 * dans l'objet utilisateur pour optimiser les performances.
+	 * de récompense cumulés et les préférences de voyage. Les offres sont mises en cache,
+	 * indexées par l'ensemble des paramètres de prix ({@link TripQuoteKey}) : une demande
+	 * identique est servie sans appel à TripPricer, et un changement de préférences ou de
+	 * points donne lieu à un nouveau calcul.
 	 *
 	 * @param user l'utilisateur pour lequel générer les offres
 	 * @return liste des offres de voyage personnalisées (généralement 5 providers)
 	 */
 	public List<Provider> getTripDeals(User user) {
-		// Calcul du total des points de fidélité
-		int cumulatativeRewardPoints = user.getUserRewards().stream().mapToInt(UserReward::getRewardPoints).sum();
+		// Clé de cache : profil de voyage et total des points de fidélité, tenu à jour à chaque récompense
+		TripQuoteKey quoteKey = TripQuoteKey.of(user);
 
-		// Appel au service externe avec le profil complet de l'utilisateur
-		List<Provider> providers = tripPricer.getPrice(tripPricerApiKey, user.getUserId(),
-				user.getUserPreferences().getNumberOfAdults(), user.getUserPreferences().getNumberOfChildren(),
-				user.getUserPreferences().getTripDuration(), cumulatativeRewardPoints);
+		// Appel au service externe uniquement si ces paramètres n'ont pas déjà été tarifés
+		List<Provider> providers = tripDealsCache.get(quoteKey, key -> tripPriceTimer.record(() -> List.copyOf(
+				tripPricer.getPrice(tripPricerApiKey, key.userId(), key.adults(), key.children(), key.nightsStay(),
+						key.rewardPoints()))));
 
-		// Cache des offres pour éviter les appels répétés
+		// Dernières offres consultées par l'utilisateur
 		user.setTripDeals(providers);
 		return providers;
 	}
 
+	/**
+	 * Version asynchrone de {@link #getTripDeals(User)} : l'appel à TripPricer, en cas d'absence
+	 * du cache, s'exécute sur le pool des requêtes interactives.
+	 */
+	public CompletableFuture<List<Provider>> getTripDealsAsync(User user) {
+		return CompletableFuture.supplyAsync(() -> getTripDeals(user), httpExecutor);
+	}
+
+	/**
+	 * @return les compteurs du cache des offres TripPricer
+	 */
+	public CacheStats getTripDealsCacheStats() {
+		return tripDealsCache.stats();
+	}
+
 	/**
 	 * Suit la position d'un utilisateur et calcule ses récompenses de manière asynchrone.
 	 * <p>
-	 * Cette méthode effectue deux opérations principales de façon asynchrone :
-	 * 1. Obtenir et enregistrer la position actuelle de l'utilisateur via gpsUtil
-	 * 2. Calculer les récompenses appropriées pour l'utilisateur basées sur sa nouvelle position
+	 * Les deux étapes sont découplées :
+	 * 1. Obtenir et enregistrer la position actuelle de l'utilisateur via gpsUtil, puis publier
+	 *    l'événement de mise à jour dans le {@link RewardPipeline}
+	 * 2. Calculer les récompenses, par un worker de l'étage des récompenses
+	 * <p>
+	 * Le thread du pool gps est rendu dès la fin de la première étape. Le future retourné attend
+	 * néanmoins les récompenses ; pour ne suivre que la position, utiliser {@link #updateUserLocation}.
 	 * <p>
-	 * L'utilisation de CompletableFuture permet à ces opérations potentiellement lentes
-	 * de s'exécuter en parallèle pour de nombreux utilisateurs, améliorant considérablement
-	 * les performances lors du traitement d'un grand nombre d'utilisateurs simultanément.
+	 * Un seul suivi est en cours par utilisateur : un appel reçu pendant un suivi (Tracker et
+	 * requête /getLocation simultanés) en partage le résultat, sans nouvel appel à gpsUtil.
 	 *
 	 * @param user L'utilisateur dont la position doit être suivie
 	 * @return Un CompletableFuture contenant la position visitée,
 	 *         qui sera complété une fois le suivi et le calcul des récompenses terminés
 	 */
 	public CompletableFuture<VisitedLocation> trackUserLocation(User user) {
-		// Première étape : récupérer et enregistrer la position de l'utilisateur
+		return trackLocation(user)
+				.thenCompose(tracked -> tracked.rewards().thenApply(v -> tracked.visitedLocation()));
+	}
+
+	/**
+	 * Suit la position d'un utilisateur sans attendre ses récompenses, calculées ensuite par
+	 * l'étage des récompenses. Utilisé par le Tracker : la durée d'un cycle ne dépend plus de
+	 * celle des calculs de récompenses.
+	 *
+	 * @return un CompletableFuture complété une fois la position enregistrée et publiée
+	 */
+	@Override
+	public CompletableFuture<VisitedLocation> updateUserLocation(User user) {
+		return trackLocation(user).thenApply(TrackedLocation::visitedLocation);
+	}
+
+	/**
+	 * @return les compteurs de regroupement des suivis de position
+	 */
+	public SingleFlight<UUID, TrackedLocation> getLocationFlights() {
+		return locationFlights;
+	}
+
+	private CompletableFuture<TrackedLocation> trackLocation(User user) {
+		return AsyncTimers.time(trackLocationTimer,
+				() -> locationFlights.join(user.getUserId(), () -> fetchLocation(user, gpsExecutor)));
+	}
+
+	private CompletableFuture<TrackedLocation> fetchLocation(User user, ExecutorService executor) {
 		return CompletableFuture.supplyAsync(() -> {
-			// Appel à gpsUtil pour obtenir la position actuelle (opération potentiellement lente)
-			VisitedLocation visitedLocation = gpsUtil.getUserLocation(user.getUserId());
+			// Appel à gpsUtil pour obtenir la position actuelle (opération potentiellement lente),
+			// borné par le nombre maximal d'appels GPS simultanés
+			VisitedLocation visitedLocation = gpsLimiter.call(
+					() -> gpsLocationTimer.record(() -> gpsUtil.getUserLocation(user.getUserId())));
 
-			// Enregistrer cette position dans l'historique de l'utilisateur
+			// Enregistrer cette position dans l'historique de l'utilisateur, puis la publier :
+			// les récompenses sont calculées par l'étage suivant, sans occuper ce thread
 			user.addToVisitedLocations(visitedLocation);
-			return visitedLocation;
-		}, executorService).thenCompose(visitedLocation -> {
-			// Deuxième étape : calculer les récompenses basées sur la nouvelle position
-			// thenCompose permet d'enchaîner une autre opération asynchrone tout en gardant le flux
-			return rewardsService.calculateRewards(user).thenApply(v -> visitedLocation);
-		});
+			return new TrackedLocation(visitedLocation, rewardPipeline.publish(user));
+		}, executor);
 	}
 
 	/**
-	 * Obtient les 5 attractions les plus proches de l'utilisateur avec toutes les informations détaillées.
+	 * Position obtenue par un suivi, et calcul des récompenses déclenché par sa publication.
+	 */
+	public record TrackedLocation(VisitedLocation visitedLocation, CompletableFuture<Void> rewards) {
+	}
+
+	/**
+	 * Obtient les 5 attractions les plus proches de l'utilisateur avec toutes les informations détaillées,
+	 * dans le rayon de ses préférences.
 	 */
 	public List<NearbyAttractionDTO> getNearbyAttractionsWithDetails(User user) {
+		return getNearbyAttractionsWithDetailsAsync(user).join();
+	}
+
+	/**
+	 * Version asynchrone de {@link #getNearbyAttractionsWithDetails(User)}, limitée au rayon
+	 * {@link UserPreferences#getAttractionProximity()} de l'utilisateur (illimité par défaut).
+	 */
+	public CompletableFuture<List<NearbyAttractionDTO>> getNearbyAttractionsWithDetailsAsync(User user) {
+		return getNearbyAttractionsWithDetailsAsync(user, DEFAULT_NEARBY_ATTRACTIONS,
+				user.getUserPreferences().getAttractionProximity());
+	}
+
+	/**
+	 * Obtient au plus {@code count} attractions situées à moins de {@code radiusMiles} de l'utilisateur :
+	 * les points de récompense sont demandés simultanément, et aucun thread n'attend gpsUtil ni
+	 * RewardCentral. La réponse arrive après un seul aller-retour vers RewardCentral au plus, borné
+	 * par le délai de {@link RewardPointsLookup} ; les points non obtenus à temps sont laissés vides.
+	 *
+	 * @param count nombre maximal d'attractions, strictement positif
+	 * @param radiusMiles rayon de recherche en miles, positif ou nul
+	 * @throws IllegalArgumentException si le nombre ou le rayon est invalide
+	 */
+	public CompletableFuture<List<NearbyAttractionDTO>> getNearbyAttractionsWithDetailsAsync(User user, int count,
+			double radiusMiles) {
+		checkNearbySearch(count, radiusMiles);
 		// Obtenir la dernière position de l'utilisateur
-		VisitedLocation visitedLocation = getUserLocation(user);
-
-		// Obtenir les 5 attractions les plus proches
-		List<Attraction> nearbyAttractions = getNearByAttractions(visitedLocation);
-
-		// Créer la liste de résultats sous forme de DTOs
-		List<NearbyAttractionDTO> result = new ArrayList<>(5);
-
-		// Pour chaque attraction, créer un DTO avec toutes les informations demandées
-		for (Attraction attraction : nearbyAttractions) {
-			// Calcule la distance entre l'utilisateur et l'attraction
-			double distance = rewardsService.getDistance(attraction, visitedLocation.location);
-			// Récupère les points de récompense pour cette attraction
-			int rewardPoints = rewardsService.getRewardPoints(attraction, user);
-
-			// Créer un DTO et l'ajouter à la liste
-			NearbyAttractionDTO dto = new NearbyAttractionDTO(
-					attraction.attractionName,
-					new Location(attraction.latitude, attraction.longitude),
-					visitedLocation.location,
-					distance,
-					rewardPoints
-			);
-
-			result.add(dto);
-		}
+		return getUserLocationAsync(user).thenCompose(visitedLocation -> {
+			// Obtenir les attractions les plus proches dans le rayon, avec leur distance déjà calculée par l'index
+			List<AttractionIndex.Neighbor> nearbyAttractions = attractionIndex.nearest(visitedLocation.location, count,
+					radiusMiles);
+
+			// Demande des points de récompense de toutes les attractions en même temps
+			List<CompletableFuture<NearbyAttractionDTO>> dtos = new ArrayList<>(nearbyAttractions.size());
+			for (AttractionIndex.Neighbor neighbor : nearbyAttractions) {
+				Attraction attraction = neighbor.attraction();
+				dtos.add(rewardPointsLookup.lookup(attraction, user).thenApply(rewardPoints ->
+						new NearbyAttractionDTO(
+								attraction.attractionName,
+								new Location(attraction.latitude, attraction.longitude),
+								visitedLocation.location,
+								neighbor.distance(),
+								rewardPoints
+						)));
+			}
 
-		return result;
+			// Résultat dans l'ordre des distances, une fois toutes les réponses arrivées
+			return CompletableFuture.allOf(dtos.toArray(new CompletableFuture[0]))
+					.thenApply(v -> dtos.stream().map(CompletableFuture::join).toList());
+		});
 	}
 
 	/**
 	 * Retourne les 5 attractions les plus proches de l'emplacement donné, quelle que soit leur distance.
 	 *
-	 * Utilise un min-heap (PriorityQueue) pour une complexité optimale O(n log 5) au lieu de
-	 * O(n log n) d'un tri complet. Garantit toujours exactement 5 résultats.
+	 * Délègue à l'index spatial (k-d tree) : seules les branches pouvant contenir un meilleur
+	 * candidat que le 5e actuel sont explorées, le coût ne croît plus avec la taille du catalogue.
+	 * Garantit toujours 5 résultats dès que le catalogue en contient au moins 5.
 	 *
 	 * @param visitedLocation l'emplacement de référence
 	 * @return liste des 5 attractions les plus proches, ordonnées par distance croissante
 	 */
 	public List<Attraction> getNearByAttractions(VisitedLocation visitedLocation) {
-		List<Attraction> allAttractions = gpsUtil.getAttractions();
-
-		// Min-heap de taille fixe pour maintenir les 5 plus petites distances
-		PriorityQueue<Map.Entry<Attraction, Double>> nearestAttractions =
-				new PriorityQueue<>(5, Comparator.comparingDouble(Map.Entry::getValue));
+		return getNearByAttractions(visitedLocation, DEFAULT_NEARBY_ATTRACTIONS, Double.POSITIVE_INFINITY);
+	}
 
-		for (Attraction attraction : allAttractions) {
-			double distance = rewardsService.getDistance(attraction, visitedLocation.location);
+	/**
+	 * Retourne au plus {@code count} attractions situées à moins de {@code radiusMiles} de
+	 * l'emplacement donné. Le rayon borne l'exploration de l'index : un rayon étroit ne visite que
+	 * les branches proches, quel que soit {@code count}.
+	 *
+	 * @return les attractions trouvées, ordonnées par distance croissante
+	 * @throws IllegalArgumentException si le nombre ou le rayon est invalide
+	 */
+	public List<Attraction> getNearByAttractions(VisitedLocation visitedLocation, int count, double radiusMiles) {
+		checkNearbySearch(count, radiusMiles);
+		return attractionIndex.nearest(visitedLocation.location, count, radiusMiles).stream()
+				.map(AttractionIndex.Neighbor::attraction)
+				.toList();
+	}
 
-			// Phase de remplissage : ajouter les 5 premières attractions
-			if (nearestAttractions.size() < 5) {
-				nearestAttractions.add(new AbstractMap.SimpleEntry<>(attraction, distance));
-			}
-			// Phase d'optimisation : remplacer si distance plus courte
-            // maintiens un min-heap où peek() me donne toujours l'attraction la plus éloignée des 5 actuellement stockées.
-            // Si je trouve mieux, je l'échange
-			else if (distance < nearestAttractions.peek().getValue()) {
-				nearestAttractions.poll();
-				nearestAttractions.add(new AbstractMap.SimpleEntry<>(attraction, distance));
-			}
+	private static void checkNearbySearch(int count, double radiusMiles) {
+		if (count <= 0) {
+			throw new IllegalArgumentException("Nombre d'attractions invalide : " + count);
 		}
-
-		// Extraction et mise en ordre des résultats
-		List<Attraction> result = new ArrayList<>(5);
-		while (!nearestAttractions.isEmpty()) {
-			result.add(nearestAttractions.poll().getKey());
+		if (!(radiusMiles >= 0)) {
+			throw new IllegalArgumentException("Rayon de recherche invalide : " + radiusMiles);
 		}
-		Collections.reverse(result);
-		return result;
 	}
 
-	// Méthode pour fermer proprement l'ExecutorService
+	// Méthode pour fermer proprement les pools
 	public void shutdownExecutorService() {
-		executorService.shutdown();
+		gpsExecutor.shutdown();
+		httpExecutor.shutdown();
 	}
 
 	private void addShutDownHook() {
@@ -234,43 +474,44 @@ public class TourGuideService {
 	private static final String tripPricerApiKey = "test-server-api-key";
 	// Database connection will be used for external users, but for testing purposes
 	// internal users are provided and stored in memory
-	private final Map<String, User> internalUserMap = new HashMap<>();
-
-	private void initializeInternalUsers() {
-		IntStream.range(0, InternalTestHelper.getInternalUserNumber()).forEach(i -> {
-			String userName = "internalUser" + i;
-			String phone = "000";
-			String email = userName + "@tourGuide.com";
-			User user = new User(UUID.randomUUID(), userName, phone, email);
-			generateUserLocationHistory(user);
-
-			internalUserMap.put(userName, user);
-		});
-		logger.debug("Created " + InternalTestHelper.getInternalUserNumber() + " internal test users.");
-	}
+	private final UserRegistry userRegistry = new UserRegistry();
 
-	private void generateUserLocationHistory(User user) {
-		IntStream.range(0, 3).forEach(i -> {
-			user.addToVisitedLocations(new VisitedLocation(user.getUserId(),
-					new Location(generateRandomLatitude(), generateRandomLongitude()), getRandomTime()));
-		});
-	}
+	// Nombre d'utilisateurs internes pouvant encore être créés à la demande (création paresseuse)
+	private volatile int lazySeedingCount;
+	private volatile SeedingReport seedingReport;
 
-	private double generateRandomLongitude() {
-		double leftLimit = -180;
-		double rightLimit = 180;
-		return leftLimit + new Random().nextDouble() * (rightLimit - leftLimit);
+	/**
+	 * @return le bilan de la création des utilisateurs internes, ou null si elle n'est pas terminée
+	 *         ou n'a pas eu lieu
+	 */
+	public SeedingReport getSeedingReport() {
+		return seedingReport;
 	}
 
-	private double generateRandomLatitude() {
-		double leftLimit = -85.05112878;
-		double rightLimit = 85.05112878;
-		return leftLimit + new Random().nextDouble() * (rightLimit - leftLimit);
+	private void initializeInternalUsers() {
+		seedingReport = internalUserSeeder.seedAll(InternalTestHelper.getInternalUserNumber(),
+				this::applyHistorySettings, userRegistry::add);
+		logger.info("Created internal test users: " + seedingReport);
 	}
 
-	private Date getRandomTime() {
-		LocalDateTime localDateTime = LocalDateTime.now().minusDays(new Random().nextInt(30));
-		return Date.from(localDateTime.toInstant(ZoneOffset.UTC));
+	/**
+	 * Crée les utilisateurs internes dans un thread dédié, par le même chemin que {@link #addUser} :
+	 * ils sont enregistrés par la persistance, démarrée avant eux.
+	 */
+	private void startLazySeeding() {
+		int count = InternalTestHelper.getInternalUserNumber();
+		lazySeedingCount = count;
+		Thread seeding = new Thread(() -> {
+			SeedingReport report = internalUserSeeder.seedAll(count, this::applyHistorySettings, user -> {
+				if (lazySeedingCount > 0) {
+					addUser(user);
+				}
+			});
+			seedingReport = report;
+			logger.info("Created internal test users in background: " + report);
+		}, "user-seeding");
+		seeding.setDaemon(true);
+		seeding.start();
 	}
 
 	/**
@@ -278,7 +519,8 @@ public class TourGuideService {
 	 * Permet d'isoler les tests les uns des autres en garantissant un état propre.
 	 */
 	public void clearInternalUsers() {
-		internalUserMap.clear();
+		lazySeedingCount = 0;
+		userRegistry.clear();
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.openclassrooms.tourguide.service;
+
+import java.util.UUID;
+
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserPreferences;
+
+/**
+ * Paramètres d'une demande de prix à TripPricer, utilisés comme clé du cache des offres.
+ * Une modification des préférences ou du total de points donne une nouvelle clé : l'ancienne
+ * offre n'est plus servie et finit par être évincée.
+ */
+public record TripQuoteKey(UUID userId, int adults, int children, int nightsStay, int rewardPoints) {
+
+	public static TripQuoteKey of(User user) {
+		UserPreferences preferences = user.getUserPreferences();
+		return new TripQuoteKey(user.getUserId(), preferences.getNumberOfAdults(),
+				preferences.getNumberOfChildren(), preferences.getTripDuration(), user.getTotalRewardPoints());
+	}
+}
@@ -0,0 +1,18 @@
+package com.openclassrooms.tourguide.tracker;
+
+/**
+ * Bilan d'un tick du Tracker, c'est-à-dire du traitement d'une case de la roue.
+ *
+ * @param tick numéro du tick depuis le démarrage
+ * @param users utilisateurs arrivés à échéance dans cette case
+ * @param completed suivis terminés avant la fin du tick
+ * @param overrun suivis encore en cours à la fin du tick ; l'utilisateur ne sera replanifié
+ *                qu'une fois son suivi terminé
+ * @param elapsedMillis durée réelle du tick, de la première soumission à la dernière complétion
+ */
+public record CycleReport(long tick, int users, int completed, int overrun, long elapsedMillis) {
+
+	public boolean isOverrun() {
+		return overrun > 0;
+	}
+}
@@ -0,0 +1,17 @@
+package com.openclassrooms.tourguide.tracker;
+
+/**
+ * Bilan d'un tour complet de la roue du Tracker, du début de sa première case à la fin de la dernière.
+ *
+ * @param round numéro du tour depuis le démarrage
+ * @param users utilisateurs arrivés à échéance pendant le tour, toutes cases confondues
+ * @param late suivis encore en cours à l'échéance de leur case
+ * @param elapsedMillis durée réelle du tour, du début de la première case à la dernière complétion
+ *                      attendue dans la dernière case
+ */
+public record RoundReport(long round, int users, int late, long elapsedMillis) {
+
+	public boolean hasLateUsers() {
+		return late > 0;
+	}
+}
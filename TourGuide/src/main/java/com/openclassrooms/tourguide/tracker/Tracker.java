@@ -1,26 +1,73 @@
 package com.openclassrooms.tourguide.tracker;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.lang3.time.StopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.openclassrooms.tourguide.service.TourGuideService;
 import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserRegistry;
 
+/**
+ * Suivi périodique de la position de tous les utilisateurs, lissé dans le temps.
+ *
+ * Plutôt que d'interroger GpsUtil pour tous les utilisateurs en une seule rafale toutes les
+ * 5 minutes, l'intervalle est découpé en cases (roue temporelle). Chaque utilisateur est placé
+ * dans la case donnée par le hash de son UUID, puis replanifié à la fin de son suivi :
+ * - après {@code pollingInterval} s'il n'a pas bougé
+ * - après {@code activeInterval} s'il s'est déplacé de plus de {@code movementThresholdMiles}
+ *
+ * À chaque tick, le Tracker lance le suivi asynchrone des utilisateurs de la case courante (les
+ * appels à GpsUtil s'exécutent sur le pool gps), puis attend leur complétion réelle jusqu'à la fin
+ * du tick. Un utilisateur n'est jamais dans la roue pendant son suivi : un suivi lent ne peut pas
+ * être relancé avant d'être terminé.
+ *
+ * Un utilisateur ajouté en cours de route est placé dans sa case dès son ajout via {@link #schedule(User)} ;
+ * le balayage du registre en début de tour ne rattrape que ceux ajoutés sans passer par le service.
+ * Chaque tick produit un {@link CycleReport}, chaque tour complet un {@link RoundReport}.
+ */
 public class Tracker extends Thread {
 	private Logger logger = LoggerFactory.getLogger(Tracker.class);
-	private static final long trackingPollingInterval = TimeUnit.MINUTES.toSeconds(5);
 	private final ExecutorService executorService = Executors.newSingleThreadExecutor();
-	private final TourGuideService tourGuideService;
-	private boolean stop = false;
+	private final TrackingTarget tourGuideService;
+	private final TrackerSettings settings;
+	private final List<Queue<User>> wheel;
+	// Utilisateurs présents dans la roue ou en cours de suivi
+	private final Set<UUID> scheduled = ConcurrentHashMap.newKeySet();
+	private final AtomicLong currentTick = new AtomicLong();
+	private volatile CycleReport lastCycleReport;
+	private volatile RoundReport lastRoundReport;
+	// Cumul du tour en cours, tenu par le seul thread du Tracker
+	private long roundStartNanos;
+	private int roundUsers;
+	private int roundLate;
+	private volatile boolean stop = false;
 
-	public Tracker(TourGuideService tourGuideService) {
+	public Tracker(TrackingTarget tourGuideService) {
+		this(tourGuideService, TrackerSettings.defaults());
+	}
+
+	public Tracker(TrackingTarget tourGuideService, TrackerSettings settings) {
 		this.tourGuideService = tourGuideService;
+		this.settings = settings;
+		this.wheel = new ArrayList<>(settings.wheelSlots());
+		for (int i = 0; i < settings.wheelSlots(); i++) {
+			wheel.add(new ConcurrentLinkedQueue<>());
+		}
 
 		executorService.submit(this);
 	}
@@ -33,29 +80,178 @@ public class Tracker extends Thread {
 		executorService.shutdownNow();
 	}
 
+	/**
+	 * @return le bilan du dernier tick terminé, ou null si aucun tick n'a encore eu lieu
+	 */
+	public CycleReport getLastCycleReport() {
+		return lastCycleReport;
+	}
+
+	/**
+	 * @return le bilan du dernier tour complet de la roue, ou null si aucun tour n'est encore terminé
+	 */
+	public RoundReport getLastRoundReport() {
+		return lastRoundReport;
+	}
+
+	/**
+	 * Place l'utilisateur dans sa case sans attendre le prochain tour. Sans effet s'il est déjà
+	 * dans la roue ou en cours de suivi.
+	 */
+	public void schedule(User user) {
+		if (scheduled.add(user.getUserId())) {
+			wheel.get(slotOf(user)).add(user);
+		}
+	}
+
+	/**
+	 * @return le retard du dernier tick sur la cadence de la roue, en millisecondes (0 s'il a tenu dans sa case)
+	 */
+	public long getCycleLagMillis() {
+		CycleReport report = lastCycleReport;
+		return report == null ? 0 : Math.max(0, report.elapsedMillis() - settings.tickDuration().toMillis());
+	}
+
 	@Override
 	public void run() {
-		StopWatch stopWatch = new StopWatch();
+		long tickMillis = settings.tickDuration().toMillis();
 		while (true) {
 			if (Thread.currentThread().isInterrupted() || stop) {
 				logger.debug("Tracker stopping");
 				break;
 			}
 
-			List<User> users = tourGuideService.getAllUsers();
-			logger.debug("Begin Tracker. Tracking " + users.size() + " users.");
-			stopWatch.start();
-			users.forEach(u -> tourGuideService.trackUserLocation(u));
-			stopWatch.stop();
-			logger.debug("Tracker Time Elapsed: " + TimeUnit.MILLISECONDS.toSeconds(stopWatch.getTime()) + " seconds.");
-			stopWatch.reset();
 			try {
-				logger.debug("Tracker sleeping");
-				TimeUnit.SECONDS.sleep(trackingPollingInterval);
+				long tick = currentTick.get();
+				if (tick % settings.wheelSlots() == 0) {
+					startRound();
+				}
+				lastCycleReport = trackDueUsers(tick);
+				if (tick % settings.wheelSlots() == settings.wheelSlots() - 1) {
+					lastRoundReport = endRound(tick / settings.wheelSlots());
+				}
+				currentTick.incrementAndGet();
+				// Le tick suivant démarre une durée de case après le début du précédent
+				TimeUnit.MILLISECONDS.sleep(Math.max(0, tickMillis - lastCycleReport.elapsedMillis()));
 			} catch (InterruptedException e) {
 				break;
 			}
 		}
 
 	}
+
+	/**
+	 * En début de tour, place dans la roue les utilisateurs qui n'y sont pas encore,
+	 * à la case donnée par le hash de leur UUID.
+	 */
+	private void startRound() {
+		UserRegistry users = tourGuideService.getUserRegistry();
+		logger.debug("Begin Tracker round. Tracking " + users.size() + " users over "
+				+ settings.wheelSlots() + " slots.");
+		users.forEach(this::schedule);
+		roundStartNanos = System.nanoTime();
+		roundUsers = 0;
+		roundLate = 0;
+	}
+
+	private RoundReport endRound(long round) {
+		long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - roundStartNanos);
+		RoundReport report = new RoundReport(round, roundUsers, roundLate, elapsedMillis);
+		if (report.hasLateUsers()) {
+			logger.warn("Tracker round " + round + " finished in " + elapsedMillis + " ms with " + roundLate
+					+ " late tracking(s) out of " + roundUsers + ".");
+		} else {
+			logger.debug("Tracker round " + round + " finished in " + elapsedMillis + " ms. " + report);
+		}
+		return report;
+	}
+
+	private int slotOf(User user) {
+		return Math.floorMod(user.getUserId().hashCode(), settings.wheelSlots());
+	}
+
+	/**
+	 * Traite la case du tick : lancement des suivis puis attente de leur fin jusqu'à la fin du tick.
+	 */
+	private CycleReport trackDueUsers(long tick) throws InterruptedException {
+		StopWatch stopWatch = StopWatch.createStarted();
+		List<User> dueUsers = drainSlot(tick);
+
+		List<CompletableFuture<?>> tickFutures = new ArrayList<>(dueUsers.size());
+		for (User user : dueUsers) {
+			tickFutures.add(track(user, tick));
+		}
+
+		int overrun = awaitTick(tickFutures, stopWatch);
+		stopWatch.stop();
+
+		CycleReport report = new CycleReport(tick, dueUsers.size(), tickFutures.size() - overrun, overrun,
+				stopWatch.getTime());
+		roundUsers += report.users();
+		roundLate += report.overrun();
+		if (report.isOverrun()) {
+			logger.warn("Tracker tick overrun: " + overrun + " tracking(s) still running after "
+					+ settings.tickDuration().toMillis() + " ms, rescheduled on completion.");
+		}
+		if (!dueUsers.isEmpty()) {
+			logger.debug("Tracker Time Elapsed: " + stopWatch.getTime() + " ms. " + report);
+		}
+		return report;
+	}
+
+	private List<User> drainSlot(long tick) {
+		Queue<User> slot = wheel.get((int) (tick % settings.wheelSlots()));
+		UserRegistry users = tourGuideService.getUserRegistry();
+		List<User> dueUsers = new ArrayList<>(slot.size());
+		User user;
+		while ((user = slot.poll()) != null) {
+			// Utilisateur retiré du registre depuis sa planification : il sort de la roue
+			if (users.getById(user.getUserId()) != user) {
+				scheduled.remove(user.getUserId());
+				continue;
+			}
+			dueUsers.add(user);
+		}
+		return dueUsers;
+	}
+
+	private CompletableFuture<?> track(User user, long dispatchTick) {
+		CompletableFuture<?> tracking;
+		try {
+			tracking = tourGuideService.updateUserLocation(user);
+		} catch (RuntimeException e) {
+			// Pool gps saturé par exemple : l'utilisateur est repris à sa prochaine échéance
+			tracking = CompletableFuture.failedFuture(e);
+		}
+		return tracking.whenComplete((location, error) -> reschedule(user, dispatchTick));
+	}
+
+	/**
+	 * Replace l'utilisateur dans la roue selon sa cadence, relativement au tick où il a été lancé.
+	 * Si son suivi a duré plus longtemps que sa cadence, il est repris au tick suivant.
+	 */
+	private void reschedule(User user, long dispatchTick) {
+		boolean moving = tourGuideService.hasMovedRecently(user, settings.movementThresholdMiles());
+		int periodTicks = settings.ticksFor(moving ? settings.activeInterval() : settings.pollingInterval());
+		long nextTick = Math.max(dispatchTick + periodTicks, currentTick.get() + 1);
+		wheel.get((int) (nextTick % settings.wheelSlots())).add(user);
+	}
+
+	/**
+	 * Attend la fin des suivis du tick jusqu'à son échéance.
+	 *
+	 * @return le nombre de suivis encore en cours à l'échéance
+	 */
+	private int awaitTick(List<CompletableFuture<?>> tickFutures, StopWatch stopWatch) throws InterruptedException {
+		long remainingMillis = settings.tickDuration().toMillis() - stopWatch.getTime();
+		try {
+			CompletableFuture.allOf(tickFutures.toArray(new CompletableFuture[0]))
+					.get(Math.max(0, remainingMillis), TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			return (int) tickFutures.stream().filter(future -> !future.isDone()).count();
+		} catch (ExecutionException e) {
+			logger.warn("Au moins un suivi du tick a échoué", e.getCause());
+		}
+		return 0;
+	}
 }
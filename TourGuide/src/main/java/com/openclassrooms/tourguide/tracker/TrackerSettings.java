@@ -0,0 +1,44 @@
+package com.openclassrooms.tourguide.tracker;
+
+import java.time.Duration;
+
+/**
+ * Paramètres du Tracker, lus depuis application.properties.
+ *
+ * @param pollingInterval intervalle de suivi d'un utilisateur immobile (un tour complet de la roue)
+ * @param wheelSlots nombre de cases de la roue : les utilisateurs sont répartis entre elles
+ *                   et une case est traitée toutes les {@code pollingInterval / wheelSlots}
+ * @param activeInterval intervalle de suivi d'un utilisateur qui vient de se déplacer
+ * @param movementThresholdMiles déplacement minimal entre les deux dernières positions pour
+ *                               qu'un utilisateur soit considéré en mouvement
+ */
+public record TrackerSettings(Duration pollingInterval, int wheelSlots, Duration activeInterval,
+		double movementThresholdMiles) {
+
+	public TrackerSettings {
+		if (wheelSlots <= 0) {
+			throw new IllegalArgumentException("Le Tracker doit avoir au moins une case");
+		}
+		if (activeInterval.compareTo(pollingInterval) > 0) {
+			throw new IllegalArgumentException("L'intervalle actif ne peut dépasser l'intervalle de suivi");
+		}
+	}
+
+	public static TrackerSettings defaults() {
+		return new TrackerSettings(Duration.ofMinutes(5), 60, Duration.ofMinutes(1), 0.5);
+	}
+
+	/**
+	 * @return la durée d'une case de la roue
+	 */
+	public Duration tickDuration() {
+		return pollingInterval.dividedBy(wheelSlots);
+	}
+
+	/**
+	 * @return le nombre de cases correspondant à l'intervalle donné (au moins une)
+	 */
+	public int ticksFor(Duration interval) {
+		return (int) Math.max(1, Math.min(wheelSlots, interval.toMillis() / Math.max(1, tickDuration().toMillis())));
+	}
+}
@@ -0,0 +1,31 @@
+package com.openclassrooms.tourguide.tracker;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserRegistry;
+
+/**
+ * Ce que le {@link Tracker} attend du service qu'il alimente : les utilisateurs à suivre, le suivi
+ * d'un utilisateur et son état de déplacement. Implémentée par TourGuideService.
+ */
+public interface TrackingTarget {
+
+	/**
+	 * @return le registre des utilisateurs à suivre
+	 */
+	UserRegistry getUserRegistry();
+
+	/**
+	 * Lance le suivi de la position de l'utilisateur sans bloquer l'appelant.
+	 *
+	 * @return un CompletableFuture complété une fois la position enregistrée
+	 */
+	CompletableFuture<?> updateUserLocation(User user);
+
+	/**
+	 * @return vrai si l'utilisateur s'est déplacé de plus de la distance donnée entre ses deux
+	 *         dernières positions connues
+	 */
+	boolean hasMovedRecently(User user, double thresholdMiles);
+}
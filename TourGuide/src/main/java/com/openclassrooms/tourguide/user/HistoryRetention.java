@@ -0,0 +1,47 @@
+package com.openclassrooms.tourguide.user;
+
+import java.time.Duration;
+
+/**
+ * Règles de rétention de l'historique des positions d'un utilisateur, lues depuis application.properties.
+ *
+ * @param maxLocations nombre maximal de positions conservées (0 : illimité)
+ * @param maxAge âge au-delà duquel les positions sont supprimées (zéro : illimité)
+ * @param downsampleAfter âge au-delà duquel les positions sont sous-échantillonnées (zéro : jamais)
+ * @param downsampleStride une position conservée sur {@code downsampleStride} après sous-échantillonnage
+ *                         (1 : pas de sous-échantillonnage)
+ */
+public record HistoryRetention(int maxLocations, Duration maxAge, Duration downsampleAfter, int downsampleStride) {
+
+	public HistoryRetention {
+		if (maxLocations < 0 || downsampleStride < 1 || maxAge.isNegative() || downsampleAfter.isNegative()) {
+			throw new IllegalArgumentException("Règles de rétention de l'historique invalides");
+		}
+	}
+
+	/**
+	 * @return des règles qui conservent tout l'historique, comme avant l'introduction de la rétention
+	 */
+	public static HistoryRetention unbounded() {
+		return new HistoryRetention(0, Duration.ZERO, Duration.ZERO, 1);
+	}
+
+	/**
+	 * @return vrai si aucune règle ne supprime ni ne sous-échantillonne de position
+	 */
+	public boolean retainsEverything() {
+		return !limitsCount() && !limitsAge() && !downsamples();
+	}
+
+	public boolean limitsCount() {
+		return maxLocations > 0;
+	}
+
+	public boolean limitsAge() {
+		return !maxAge.isZero();
+	}
+
+	public boolean downsamples() {
+		return downsampleStride > 1 && !downsampleAfter.isZero();
+	}
+}
@@ -0,0 +1,498 @@
+package com.openclassrooms.tourguide.user;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.UUID;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * Historique des positions d'un utilisateur, optimisé pour l'ajout.
+ *
+ * Les positions sont rangées dans des blocs de {@value #CHUNK_CAPACITY} entrées. Un ajout écrit
+ * dans le bloc courant, sans recopier l'historique : le coût est en O(1), alors qu'une
+ * CopyOnWriteArrayList recopie tout le tableau à chaque position reçue du Tracker.
+ * Le premier bloc d'un historique est dimensionné à la demande : {@value #INITIAL_CHUNK_CAPACITY}
+ * entrées, doublées à chaque remplissage jusqu'à {@value #CHUNK_CAPACITY}. Un historique court
+ * (quelques positions, cas de la plupart des utilisateurs) n'occupe ainsi pas un bloc entier.
+ *
+ * Chaque position reçoit un numéro de séquence croissant, conservé après compaction et après
+ * {@link #clear()} : il permet de reprendre un traitement (évaluation des récompenses) là où
+ * il s'était arrêté, même si des positions plus anciennes ont été supprimées entre-temps.
+ *
+ * Quand un bloc est plein, les blocs précédents sont compactés selon la {@link HistoryRetention} :
+ * - suppression des blocs trop anciens ou au-delà du nombre maximal de positions
+ * - sous-échantillonnage des blocs anciens (une position sur {@code downsampleStride})
+ * La rétention s'applique donc par bloc entier : l'historique peut dépasser {@code maxLocations}
+ * d'au plus un bloc, mais la mémoire par utilisateur reste bornée.
+ *
+ * Selon le {@link LocationStorage}, un bloc conserve les VisitedLocation reçues ou seulement
+ * leurs latitudes, longitudes et dates dans des tableaux primitifs. Le mode de stockage ne
+ * s'applique qu'aux blocs créés après son changement : un historique peut mélanger les deux.
+ *
+ * Les ajouts sont sérialisés ; les lectures se font sans verrou sur un {@link Snapshot} immuable
+ * qui partage les blocs de l'historique au lieu de les copier.
+ */
+public class LocationHistory {
+	static final int CHUNK_CAPACITY = 64;
+	static final int INITIAL_CHUNK_CAPACITY = 4;
+
+	private volatile HistoryRetention retention;
+	private volatile LocationStorage storage;
+	private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+	public LocationHistory() {
+		this(HistoryRetention.unbounded());
+	}
+
+	public LocationHistory(HistoryRetention retention) {
+		this(retention, LocationStorage.OBJECTS);
+	}
+
+	public LocationHistory(HistoryRetention retention, LocationStorage storage) {
+		this.retention = Objects.requireNonNull(retention);
+		this.storage = Objects.requireNonNull(storage);
+	}
+
+	public HistoryRetention getRetention() {
+		return retention;
+	}
+
+	/**
+	 * Change les règles de rétention. Elles s'appliquent à la prochaine compaction.
+	 */
+	public void setRetention(HistoryRetention retention) {
+		this.retention = Objects.requireNonNull(retention);
+	}
+
+	public LocationStorage getStorage() {
+		return storage;
+	}
+
+	/**
+	 * Change le mode de stockage des prochains blocs. Les blocs existants restent inchangés.
+	 */
+	public void setStorage(LocationStorage storage) {
+		this.storage = Objects.requireNonNull(storage);
+	}
+
+	/**
+	 * @return le numéro de séquence attribué à la position
+	 */
+	public synchronized long append(VisitedLocation visitedLocation) {
+		Snapshot current = snapshot;
+		if (current.chunkCount == 0) {
+			current = startChunk(current, visitedLocation.userId);
+		} else if (current.tailCount() == current.chunks[current.chunkCount - 1].length()) {
+			current = current.tailCount() < CHUNK_CAPACITY
+					? growTail(current)
+					: startChunk(compact(current, System.currentTimeMillis()), visitedLocation.userId);
+		}
+		// L'entrée est écrite au-delà de la taille des snapshots déjà publiés : ils ne la voient pas
+		current.chunks[current.chunkCount - 1].set(current.tailCount(), visitedLocation);
+		snapshot = new Snapshot(current.chunks, current.offsets, current.chunkCount, current.size + 1,
+				current.nextSequence + 1);
+		return current.nextSequence;
+	}
+
+	/**
+	 * @return la dernière position ajoutée, en O(1), ou null si l'historique est vide
+	 */
+	public VisitedLocation last() {
+		return snapshot.last();
+	}
+
+	public int size() {
+		return snapshot.size();
+	}
+
+	/**
+	 * @return une vue immuable de l'historique à cet instant, obtenue sans copie
+	 */
+	public Snapshot snapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * Vide l'historique. Les numéros de séquence continuent de croître.
+	 */
+	public synchronized void clear() {
+		snapshot = new Snapshot(new Chunk[0], new int[0], 0, 0, snapshot.nextSequence);
+	}
+
+	/**
+	 * Ajoute un bloc vide en fin d'historique. Les tableaux de blocs sont agrandis par doublement :
+	 * les cases au-delà de {@code chunkCount} ne sont pas visibles des snapshots déjà publiés.
+	 * Le premier bloc, ou celui d'un historique vidé par la compaction, est un petit bloc.
+	 */
+	private Snapshot startChunk(Snapshot current, UUID userId) {
+		Chunk[] chunks = current.chunks;
+		int[] offsets = current.offsets;
+		int last = current.chunkCount;
+		if (last == chunks.length) {
+			chunks = Arrays.copyOf(chunks, Math.max(4, last * 2));
+			offsets = Arrays.copyOf(offsets, chunks.length);
+		}
+		int chunkCapacity = last == 0 ? INITIAL_CHUNK_CAPACITY : CHUNK_CAPACITY;
+		chunks[last] = storage == LocationStorage.COLUMNAR
+				? new ColumnarChunk(current.nextSequence, 1, userId, chunkCapacity)
+				: new ObjectChunk(current.nextSequence, 1, new VisitedLocation[chunkCapacity]);
+		offsets[last] = current.size;
+		return new Snapshot(chunks, offsets, last + 1, current.size, current.nextSequence);
+	}
+
+	/**
+	 * Remplace le dernier bloc, plein, par une copie de capacité double. Les snapshots déjà publiés
+	 * gardent l'ancien bloc, qui n'est plus modifié : les tableaux de blocs sont recopiés.
+	 */
+	private Snapshot growTail(Snapshot current) {
+		int last = current.chunkCount - 1;
+		Chunk[] chunks = Arrays.copyOf(current.chunks, current.chunks.length);
+		chunks[last] = chunks[last].grow(Math.min(CHUNK_CAPACITY, chunks[last].length() * 2));
+		int[] offsets = Arrays.copyOf(current.offsets, current.offsets.length);
+		return new Snapshot(chunks, offsets, current.chunkCount, current.size, current.nextSequence);
+	}
+
+	/**
+	 * Applique la rétention aux blocs pleins, du plus ancien au plus récent.
+	 * Sans règle de rétention, ou si aucun bloc n'est concerné, l'historique est laissé tel quel.
+	 */
+	private Snapshot compact(Snapshot current, long now) {
+		HistoryRetention rules = retention;
+		if (rules.retainsEverything()) {
+			return current;
+		}
+		List<Chunk> kept = new ArrayList<>(current.chunkCount);
+		boolean changed = false;
+		int total = 0;
+		for (int i = 0; i < current.chunkCount; i++) {
+			Chunk chunk = current.chunks[i];
+			long lastVisit = chunk.lastVisitMillis();
+			if (rules.limitsAge() && lastVisit < now - rules.maxAge().toMillis()) {
+				changed = true;
+				continue;
+			}
+			if (rules.downsamples() && chunk.stride == 1 && lastVisit < now - rules.downsampleAfter().toMillis()) {
+				chunk = chunk.downsample(rules.downsampleStride());
+				changed = true;
+			}
+			kept.add(chunk);
+			total += chunk.length();
+		}
+
+		int first = 0;
+		while (rules.limitsCount() && first < kept.size() && total > rules.maxLocations()) {
+			total -= kept.get(first++).length();
+			changed = true;
+		}
+		if (!changed) {
+			return current;
+		}
+
+		Chunk[] chunks = kept.subList(first, kept.size()).toArray(new Chunk[0]);
+		int[] offsets = new int[chunks.length];
+		for (int i = 1; i < chunks.length; i++) {
+			offsets[i] = offsets[i - 1] + chunks[i - 1].length();
+		}
+		return new Snapshot(chunks, offsets, chunks.length, total, current.nextSequence);
+	}
+
+	/**
+	 * Bloc de positions consécutives. Un bloc plein n'est plus jamais modifié ; seul le dernier
+	 * bloc de l'historique reçoit de nouvelles entrées.
+	 * La position d'indice i du bloc a pour séquence {@code firstSequence + i * stride}.
+	 */
+	private abstract static class Chunk {
+		protected final long firstSequence;
+		protected final int stride;
+
+		protected Chunk(long firstSequence, int stride) {
+			this.firstSequence = firstSequence;
+			this.stride = stride;
+		}
+
+		/**
+		 * @return la capacité du bloc, égale à son nombre de positions une fois plein
+		 */
+		abstract int length();
+
+		abstract VisitedLocation get(int index);
+
+		abstract Location locationAt(int index);
+
+		abstract void set(int index, VisitedLocation visitedLocation);
+
+		abstract long lastVisitMillis();
+
+		abstract Chunk downsample(int newStride);
+
+		/**
+		 * @return une copie du bloc, de capacité {@code capacity}, qui commence par ses entrées
+		 */
+		abstract Chunk grow(int capacity);
+
+		protected int sampledLength(int newStride) {
+			return (length() + newStride - 1) / newStride;
+		}
+	}
+
+	private static final class ObjectChunk extends Chunk {
+		private final VisitedLocation[] entries;
+
+		private ObjectChunk(long firstSequence, int stride, VisitedLocation[] entries) {
+			super(firstSequence, stride);
+			this.entries = entries;
+		}
+
+		@Override
+		int length() {
+			return entries.length;
+		}
+
+		@Override
+		VisitedLocation get(int index) {
+			return entries[index];
+		}
+
+		@Override
+		Location locationAt(int index) {
+			return entries[index].location;
+		}
+
+		@Override
+		void set(int index, VisitedLocation visitedLocation) {
+			entries[index] = visitedLocation;
+		}
+
+		@Override
+		long lastVisitMillis() {
+			VisitedLocation lastEntry = entries[entries.length - 1];
+			return lastEntry.timeVisited == null ? Long.MAX_VALUE : lastEntry.timeVisited.getTime();
+		}
+
+		@Override
+		Chunk downsample(int newStride) {
+			VisitedLocation[] sampled = new VisitedLocation[sampledLength(newStride)];
+			for (int i = 0; i < sampled.length; i++) {
+				sampled[i] = entries[i * newStride];
+			}
+			return new ObjectChunk(firstSequence, newStride, sampled);
+		}
+
+		@Override
+		Chunk grow(int capacity) {
+			return new ObjectChunk(firstSequence, stride, Arrays.copyOf(entries, capacity));
+		}
+	}
+
+	/**
+	 * Bloc en colonnes primitives. Toutes les positions d'un historique appartiennent au même
+	 * utilisateur : son UUID est conservé une seule fois par bloc.
+	 */
+	private static final class ColumnarChunk extends Chunk {
+		// Marque l'absence de date de visite
+		private static final long NO_TIME = Long.MIN_VALUE;
+
+		private final UUID userId;
+		private final double[] latitudes;
+		private final double[] longitudes;
+		private final long[] visitTimes;
+
+		private ColumnarChunk(long firstSequence, int stride, UUID userId, int capacity) {
+			super(firstSequence, stride);
+			this.userId = userId;
+			this.latitudes = new double[capacity];
+			this.longitudes = new double[capacity];
+			this.visitTimes = new long[capacity];
+		}
+
+		@Override
+		int length() {
+			return latitudes.length;
+		}
+
+		@Override
+		VisitedLocation get(int index) {
+			long visitTime = visitTimes[index];
+			return new VisitedLocation(userId, locationAt(index), visitTime == NO_TIME ? null : new Date(visitTime));
+		}
+
+		@Override
+		Location locationAt(int index) {
+			return new Location(latitudes[index], longitudes[index]);
+		}
+
+		@Override
+		void set(int index, VisitedLocation visitedLocation) {
+			latitudes[index] = visitedLocation.location.latitude;
+			longitudes[index] = visitedLocation.location.longitude;
+			visitTimes[index] = visitedLocation.timeVisited == null ? NO_TIME : visitedLocation.timeVisited.getTime();
+		}
+
+		@Override
+		long lastVisitMillis() {
+			long visitTime = visitTimes[visitTimes.length - 1];
+			return visitTime == NO_TIME ? Long.MAX_VALUE : visitTime;
+		}
+
+		@Override
+		Chunk downsample(int newStride) {
+			ColumnarChunk sampled = new ColumnarChunk(firstSequence, newStride, userId, sampledLength(newStride));
+			for (int i = 0; i < sampled.length(); i++) {
+				sampled.latitudes[i] = latitudes[i * newStride];
+				sampled.longitudes[i] = longitudes[i * newStride];
+				sampled.visitTimes[i] = visitTimes[i * newStride];
+			}
+			return sampled;
+		}
+
+		@Override
+		Chunk grow(int capacity) {
+			ColumnarChunk grown = new ColumnarChunk(firstSequence, stride, userId, capacity);
+			System.arraycopy(latitudes, 0, grown.latitudes, 0, latitudes.length);
+			System.arraycopy(longitudes, 0, grown.longitudes, 0, longitudes.length);
+			System.arraycopy(visitTimes, 0, grown.visitTimes, 0, visitTimes.length);
+			return grown;
+		}
+	}
+
+	/**
+	 * Vue immuable de l'historique, du plus ancien au plus récent.
+	 * Elle partage les blocs de l'historique : la créer et la parcourir ne recopie aucune position.
+	 * En stockage COLUMNAR, chaque lecture crée une nouvelle VisitedLocation : les traitements
+	 * qui n'ont besoin que des coordonnées utilisent {@link #locationAt(int)}.
+	 */
+	public static final class Snapshot extends AbstractList<VisitedLocation> implements RandomAccess {
+		private static final Snapshot EMPTY = new Snapshot(new Chunk[0], new int[0], 0, 0, 0);
+
+		// Tableaux partagés entre snapshots ; seules les chunkCount premières cases font partie de la vue
+		private final Chunk[] chunks;
+		// Indice, dans la vue, de la première position de chaque bloc
+		private final int[] offsets;
+		private final int chunkCount;
+		private final int size;
+		private final long nextSequence;
+
+		private Snapshot(Chunk[] chunks, int[] offsets, int chunkCount, int size, long nextSequence) {
+			this.chunks = chunks;
+			this.offsets = offsets;
+			this.chunkCount = chunkCount;
+			this.size = size;
+			this.nextSequence = nextSequence;
+		}
+
+		@Override
+		public VisitedLocation get(int index) {
+			Objects.checkIndex(index, size);
+			int chunk = chunkOf(index);
+			return chunks[chunk].get(index - offsets[chunk]);
+		}
+
+		/**
+		 * @return les coordonnées de la position d'indice donné, sans recréer sa VisitedLocation
+		 */
+		public Location locationAt(int index) {
+			Objects.checkIndex(index, size);
+			int chunk = chunkOf(index);
+			return chunks[chunk].locationAt(index - offsets[chunk]);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		/**
+		 * @return la dernière position de la vue, ou null si elle est vide
+		 */
+		public VisitedLocation last() {
+			if (size == 0) {
+				return null;
+			}
+			int chunk = chunkCount - 1;
+			return chunks[chunk].get(size - 1 - offsets[chunk]);
+		}
+
+		/**
+		 * @return le numéro de séquence de la position d'indice donné
+		 */
+		public long sequenceAt(int index) {
+			Objects.checkIndex(index, size);
+			int chunk = chunkOf(index);
+			return chunks[chunk].firstSequence + (long) (index - offsets[chunk]) * chunks[chunk].stride;
+		}
+
+		/**
+		 * @return l'indice de la première position dont la séquence est supérieure ou égale à celle
+		 *         donnée, ou {@link #size()} si aucune
+		 */
+		public int indexOfSequence(long sequence) {
+			if (size == 0 || sequence >= nextSequence) {
+				return size;
+			}
+			int chunk = chunkCount - 1;
+			while (chunk > 0 && chunks[chunk].firstSequence > sequence) {
+				chunk--;
+			}
+			Chunk found = chunks[chunk];
+			if (sequence <= found.firstSequence) {
+				return offsets[chunk];
+			}
+			int count = chunkCount(chunk);
+			long step = (sequence - found.firstSequence + found.stride - 1) / found.stride;
+			return offsets[chunk] + (int) Math.min(step, count);
+		}
+
+		/**
+		 * @return la séquence qui sera attribuée à la prochaine position ajoutée à l'historique
+		 */
+		public long nextSequence() {
+			return nextSequence;
+		}
+
+		@Override
+		public Iterator<VisitedLocation> iterator() {
+			return new Iterator<>() {
+				private int index;
+				private int chunk;
+
+				@Override
+				public boolean hasNext() {
+					return index < size;
+				}
+
+				@Override
+				public VisitedLocation next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					while (chunk + 1 < chunkCount && offsets[chunk + 1] <= index) {
+						chunk++;
+					}
+					return chunks[chunk].get(index++ - offsets[chunk]);
+				}
+			};
+		}
+
+		private int tailCount() {
+			return chunkCount == 0 ? 0 : size - offsets[chunkCount - 1];
+		}
+
+		private int chunkCount(int chunk) {
+			return (chunk + 1 < chunkCount ? offsets[chunk + 1] : size) - offsets[chunk];
+		}
+
+		private int chunkOf(int index) {
+			int found = Arrays.binarySearch(offsets, 0, chunkCount, index);
+			return found >= 0 ? found : -found - 2;
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package com.openclassrooms.tourguide.user;
+
+import java.util.Locale;
+
+/**
+ * Représentation mémoire des positions dans un {@link LocationHistory}.
+ *
+ * - OBJECTS : les VisitedLocation reçues sont conservées telles quelles (comportement historique)
+ * - COLUMNAR : latitude, longitude et date sont rangées dans des tableaux primitifs ; une
+ *   VisitedLocation n'est recréée que lorsqu'elle est demandée. Environ 24 octets par position
+ *   au lieu de trois objets (VisitedLocation, Location, Date) et de leurs en-têtes.
+ */
+public enum LocationStorage {
+	OBJECTS,
+	COLUMNAR;
+
+	public static LocationStorage fromProperty(String value) {
+		return valueOf(value.trim().toUpperCase(Locale.ROOT));
+	}
+}
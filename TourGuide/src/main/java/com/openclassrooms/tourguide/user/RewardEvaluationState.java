@@ -0,0 +1,70 @@
+package com.openclassrooms.tourguide.user;
+
+import java.util.BitSet;
+
+/**
+ * État d'évaluation des récompenses propre à un utilisateur.
+ *
+ * - {@code evaluatedSequence} : séquence du premier emplacement de l'historique non encore évalué
+ *   (marque haute), insensible à la compaction de l'historique
+ * - {@code rewardedAttractions} : attractions déjà récompensées ou en cours de récompense,
+ *   indexées par leur ordinal dans le catalogue
+ * - {@code rulesVersion} : version des règles de proximité ayant servi à l'évaluation ;
+ *   si elle change, l'historique complet doit être réévalué
+ *
+ * Chaque calcul ne traite ainsi que les emplacements ajoutés depuis le précédent.
+ * L'instance n'est pas thread-safe par elle-même : les appelants doivent se synchroniser sur elle.
+ */
+public class RewardEvaluationState {
+	private long evaluatedSequence;
+	private int rulesVersion = -1;
+	private final BitSet rewardedAttractions = new BitSet();
+
+	/**
+	 * @return vrai si l'état a été calculé avec une autre version des règles
+	 */
+	public boolean isStale(int currentRulesVersion) {
+		return rulesVersion != currentRulesVersion;
+	}
+
+	/**
+	 * Repart du début de l'historique pour la version de règles donnée.
+	 * Les attractions déjà récompensées restent marquées.
+	 */
+	public void restart(int currentRulesVersion) {
+		rulesVersion = currentRulesVersion;
+		evaluatedSequence = 0;
+	}
+
+	public long getEvaluatedSequence() {
+		return evaluatedSequence;
+	}
+
+	public void setEvaluatedSequence(long evaluatedSequence) {
+		this.evaluatedSequence = evaluatedSequence;
+	}
+
+	/**
+	 * Ramène la marque haute à l'emplacement donné pour qu'il soit réévalué au prochain calcul.
+	 */
+	public void rewindTo(long locationSequence) {
+		evaluatedSequence = Math.min(evaluatedSequence, locationSequence);
+	}
+
+	/**
+	 * Marque l'attraction comme récompensée.
+	 *
+	 * @return vrai si elle ne l'était pas encore
+	 */
+	public boolean markRewarded(int attractionOrdinal) {
+		if (rewardedAttractions.get(attractionOrdinal)) {
+			return false;
+		}
+		rewardedAttractions.set(attractionOrdinal);
+		return true;
+	}
+
+	public void unmarkRewarded(int attractionOrdinal) {
+		rewardedAttractions.clear(attractionOrdinal);
+	}
+}
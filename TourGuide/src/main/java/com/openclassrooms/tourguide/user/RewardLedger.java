@@ -0,0 +1,70 @@
+package com.openclassrooms.tourguide.user;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registre des récompenses d'un utilisateur : au plus une récompense par attraction.
+ *
+ * - Détection des doublons en O(1) et atomique (putIfAbsent) : deux calculs concurrents pour
+ *   le même utilisateur ne peuvent pas enregistrer deux fois la même attraction
+ * - Récompenses conservées dans l'ordre d'attribution, dans un tableau agrandi par doublement :
+ *   l'ajout ne recopie pas toute la liste, la lecture se fait sans verrou ni copie
+ * - Total des points tenu à jour à chaque ajout, sans reparcourir les récompenses
+ *
+ * Les attractions sont identifiées par leur nom : GpsUtil attribue un nouvel UUID aux attractions
+ * à chaque appel de getAttractions, alors que le nom reste stable.
+ * Les points d'une récompense sont comptés tels qu'ils sont au moment de son ajout.
+ */
+public class RewardLedger {
+	private final ConcurrentMap<String, UserReward> rewardsByAttraction = new ConcurrentHashMap<>();
+	private volatile UserReward[] rewards = new UserReward[8];
+	private volatile int size;
+	private volatile int totalRewardPoints;
+
+	/**
+	 * Ajoute la récompense si l'attraction n'est pas déjà récompensée.
+	 *
+	 * @return vrai si la récompense a été ajoutée
+	 */
+	public boolean add(UserReward userReward) {
+		if (rewardsByAttraction.putIfAbsent(userReward.attraction.attractionName, userReward) != null) {
+			return false;
+		}
+		synchronized (this) {
+			UserReward[] current = rewards;
+			if (size == current.length) {
+				current = Arrays.copyOf(current, current.length * 2);
+				rewards = current;
+			}
+			current[size] = userReward;
+			totalRewardPoints += userReward.getRewardPoints();
+			// Publication en dernier : un lecteur qui voit la nouvelle taille voit aussi l'entrée
+			size++;
+		}
+		return true;
+	}
+
+	public boolean contains(String attractionName) {
+		return rewardsByAttraction.containsKey(attractionName);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int getTotalRewardPoints() {
+		return totalRewardPoints;
+	}
+
+	/**
+	 * @return une vue immuable des récompenses à cet instant, dans l'ordre d'attribution
+	 */
+	public List<UserReward> asList() {
+		int count = size;
+		return Collections.unmodifiableList(Arrays.asList(rewards).subList(0, count));
+	}
+}
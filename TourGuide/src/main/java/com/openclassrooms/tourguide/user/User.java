@@ -4,7 +4,6 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 import gpsUtil.location.VisitedLocation;
 import tripPricer.Provider;
@@ -15,10 +14,12 @@ public class User {
 	private String phoneNumber;
 	private String emailAddress;
 	private Date latestLocationTimestamp;
-	private List<VisitedLocation> visitedLocations = new CopyOnWriteArrayList<>();
-	private List<UserReward> userRewards = new CopyOnWriteArrayList<>();
+	private final LocationHistory locationHistory = new LocationHistory();
+	private final RewardLedger rewardLedger = new RewardLedger();
 	private UserPreferences userPreferences = new UserPreferences();
 	private List<Provider> tripDeals = new ArrayList<>();
+	private final RewardEvaluationState rewardEvaluationState = new RewardEvaluationState();
+	private volatile UserChangeListener changeListener = UserChangeListener.NONE;
 	public User(UUID userId, String userName, String phoneNumber, String emailAddress) {
 		this.userId = userId;
 		this.userName = userName;
@@ -59,15 +60,26 @@ public class User {
 	}
 	
 	public void addToVisitedLocations(VisitedLocation visitedLocation) {
-		visitedLocations.add(visitedLocation);
+		long sequence = locationHistory.append(visitedLocation);
+		changeListener.locationAdded(this, sequence, visitedLocation);
 	}
 	
+	/**
+	 * @return une vue immuable de l'historique des positions, obtenue sans copie
+	 */
 	public List<VisitedLocation> getVisitedLocations() {
-		return visitedLocations;
+		return locationHistory.snapshot();
 	}
 	
 	public void clearVisitedLocations() {
-		visitedLocations.clear();
+		locationHistory.clear();
+	}
+
+	/**
+	 * @return l'historique des positions, avec ses numéros de séquence et ses règles de rétention
+	 */
+	public LocationHistory getLocationHistory() {
+		return locationHistory;
 	}
 
 	/**
@@ -77,21 +89,40 @@ public class User {
 	 * qu'une seule récompense par attraction. Les tentatives de doublons sont
 	 * ignorées silencieusement.
 	 *
-	 * Note : Correction d'un bug critique où l'ancienne logique inversée empêchait
-	 * l'ajout de récompenses. Utilise noneMatch() pour une vérification efficace
-	 * avec court-circuit.
+	 * La vérification et l'ajout sont atomiques et en O(1) (voir {@link RewardLedger}) :
+	 * deux calculs concurrents ne peuvent pas ajouter deux fois la même attraction.
 	 *
 	 * @param userReward la récompense à ajouter
+	 * @return vrai si la récompense a été ajoutée, faux pour un doublon
 	 */
-	public void addUserReward(UserReward userReward) {
-		// Vérification de doublon : ajouter seulement si l'attraction n'existe pas déjà
-		if(userRewards.stream().noneMatch(r -> r.attraction.attractionName.equals(userReward.attraction.attractionName))) {
-			userRewards.add(userReward);
+	public boolean addUserReward(UserReward userReward) {
+		if (!rewardLedger.add(userReward)) {
+			return false;
 		}
+		changeListener.rewardAdded(this, userReward);
+		return true;
+	}
+
+	/**
+	 * Abonne un observateur aux positions et récompenses ajoutées (persistance).
+	 * Les ajouts antérieurs ne lui sont pas notifiés.
+	 */
+	public void setChangeListener(UserChangeListener changeListener) {
+		this.changeListener = changeListener;
 	}
 	
+	/**
+	 * @return une vue immuable des récompenses, dans l'ordre d'attribution
+	 */
 	public List<UserReward> getUserRewards() {
-		return userRewards;
+		return rewardLedger.asList();
+	}
+
+	/**
+	 * @return le total des points de récompense, tenu à jour à chaque ajout
+	 */
+	public int getTotalRewardPoints() {
+		return rewardLedger.getTotalRewardPoints();
 	}
 	
 	public UserPreferences getUserPreferences() {
@@ -102,8 +133,18 @@ public class User {
 		this.userPreferences = userPreferences;
 	}
 
+	/**
+	 * @return l'état d'évaluation incrémentale des récompenses de cet utilisateur
+	 */
+	public RewardEvaluationState getRewardEvaluationState() {
+		return rewardEvaluationState;
+	}
+
+	/**
+	 * @return la dernière position connue, ou null si l'historique est vide
+	 */
 	public VisitedLocation getLastVisitedLocation() {
-		return visitedLocations.get(visitedLocations.size() - 1);
+		return locationHistory.last();
 	}
 	
 	public void setTripDeals(List<Provider> tripDeals) {
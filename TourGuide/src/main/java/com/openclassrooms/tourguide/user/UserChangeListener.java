@@ -0,0 +1,21 @@
+package com.openclassrooms.tourguide.user;
+
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * Observateur des ajouts faits à un {@link User}. Appelé dans le thread qui fait l'ajout,
+ * sur le chemin du suivi : une implémentation doit rendre la main immédiatement.
+ */
+public interface UserChangeListener {
+	UserChangeListener NONE = new UserChangeListener() {
+	};
+
+	/**
+	 * @param sequence numéro de séquence de la position dans le {@link LocationHistory}
+	 */
+	default void locationAdded(User user, long sequence, VisitedLocation visitedLocation) {
+	}
+
+	default void rewardAdded(User user, UserReward userReward) {
+	}
+}
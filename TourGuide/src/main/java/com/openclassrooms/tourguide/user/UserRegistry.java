@@ -0,0 +1,95 @@
+package com.openclassrooms.tourguide.user;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Registre thread-safe des utilisateurs, partitionné en shards.
+ *
+ * - Lectures sans verrou (ConcurrentHashMap) et en O(1) par nom comme par UUID
+ * - Chaque utilisateur appartient à un shard déterminé par son UUID : les ajouts concurrents
+ *   se répartissent entre plusieurs tables au lieu de se disputer une seule
+ * - Itération faiblement cohérente : {@link #forEach(Consumer)} reflète les ajouts concurrents
+ *   sans ConcurrentModificationException et sans copie de l'ensemble des utilisateurs
+ */
+public class UserRegistry {
+	public static final int DEFAULT_SHARD_COUNT = 16;
+
+	private final ConcurrentMap<String, User> usersByName = new ConcurrentHashMap<>();
+	private final List<ConcurrentMap<UUID, User>> shards;
+
+	public UserRegistry() {
+		this(DEFAULT_SHARD_COUNT);
+	}
+
+	public UserRegistry(int shardCount) {
+		if (shardCount <= 0) {
+			throw new IllegalArgumentException("Le nombre de shards doit être positif");
+		}
+		List<ConcurrentMap<UUID, User>> created = new ArrayList<>(shardCount);
+		for (int i = 0; i < shardCount; i++) {
+			created.add(new ConcurrentHashMap<>());
+		}
+		this.shards = Collections.unmodifiableList(created);
+	}
+
+	/**
+	 * Ajoute l'utilisateur si aucun utilisateur de même nom ni de même UUID n'est déjà enregistré.
+	 * Un utilisateur refusé pour son UUID peut être brièvement visible par son nom, le temps
+	 * d'annuler son inscription.
+	 *
+	 * @return vrai si l'utilisateur a été ajouté
+	 */
+	public boolean add(User user) {
+		if (usersByName.putIfAbsent(user.getUserName(), user) != null) {
+			return false;
+		}
+		if (shardOf(user.getUserId()).putIfAbsent(user.getUserId(), user) != null) {
+			usersByName.remove(user.getUserName(), user);
+			return false;
+		}
+		return true;
+	}
+
+	public User getByName(String userName) {
+		return usersByName.get(userName);
+	}
+
+	public User getById(UUID userId) {
+		return shardOf(userId).get(userId);
+	}
+
+	public int size() {
+		return usersByName.size();
+	}
+
+	public void forEach(Consumer<User> action) {
+		shards.forEach(shard -> shard.values().forEach(action));
+	}
+
+	public Stream<User> stream() {
+		return shards.stream().flatMap(shard -> shard.values().stream());
+	}
+
+	/**
+	 * Retire tous les utilisateurs présents, chacun de ses deux index à la fois : un utilisateur
+	 * ajouté pendant le vidage est soit retiré, soit conservé, jamais présent dans un seul index.
+	 */
+	public void clear() {
+		shards.forEach(shard -> shard.values().forEach(user -> {
+			if (shard.remove(user.getUserId(), user)) {
+				usersByName.remove(user.getUserName(), user);
+			}
+		}));
+	}
+
+	private ConcurrentMap<UUID, User> shardOf(UUID userId) {
+		return shards.get(Math.floorMod(userId.hashCode(), shards.size()));
+	}
+}
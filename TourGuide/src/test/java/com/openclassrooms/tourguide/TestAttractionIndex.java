@@ -0,0 +1,150 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import com.openclassrooms.tourguide.geo.AttractionIndex;
+import com.openclassrooms.tourguide.geo.GeoDistance;
+
+/**
+ * Tests unitaires de l'index spatial.
+ * Les résultats de l'index sont comparés à un parcours linéaire du catalogue
+ * utilisant la formule de distance historique de RewardsService.
+ */
+public class TestAttractionIndex {
+
+	private static final double TOLERANCE_MILES = GeoDistance.TOLERANCE_MILES;
+
+	private final Random random = new Random(42);
+	private List<Attraction> catalogue;
+	private AttractionIndex index;
+
+	@BeforeEach
+	public void setUp() {
+		catalogue = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			catalogue.add(new Attraction("attraction" + i, "city", "state", randomLatitude(), randomLongitude()));
+		}
+		index = new AttractionIndex(catalogue);
+	}
+
+	@Test
+	public void nearestMatchesLinearScan() {
+		for (int i = 0; i < 200; i++) {
+			Location location = new Location(randomLatitude(), randomLongitude());
+
+			List<AttractionIndex.Neighbor> neighbors = index.nearest(location, 5);
+			List<Attraction> expected = catalogue.stream()
+					.sorted(Comparator.comparingDouble(a -> distance(a, location)))
+					.limit(5)
+					.toList();
+
+			assertEquals(5, neighbors.size());
+			for (int j = 0; j < 5; j++) {
+				assertEquals(distance(expected.get(j), location), neighbors.get(j).distance(), TOLERANCE_MILES);
+			}
+		}
+	}
+
+	@Test
+	public void nearestWithinRadiusMatchesLinearScan() {
+		for (int i = 0; i < 200; i++) {
+			Location location = new Location(randomLatitude(), randomLongitude());
+			int k = 1 + random.nextInt(50);
+			double radius = random.nextDouble() * 1500;
+
+			List<AttractionIndex.Neighbor> neighbors = index.nearest(location, k, radius);
+			List<Attraction> expected = catalogue.stream()
+					.filter(a -> distance(a, location) <= radius)
+					.sorted(Comparator.comparingDouble(a -> distance(a, location)))
+					.limit(k)
+					.toList();
+
+			assertEquals(expected.size(), neighbors.size());
+			for (int j = 0; j < expected.size(); j++) {
+				assertEquals(distance(expected.get(j), location), neighbors.get(j).distance(), TOLERANCE_MILES);
+				assertTrue(neighbors.get(j).distance() <= radius);
+			}
+		}
+	}
+
+	@Test
+	public void withinRadiusMatchesLinearScan() {
+		for (int i = 0; i < 200; i++) {
+			Location location = new Location(randomLatitude(), randomLongitude());
+			double radius = random.nextDouble() * 1500;
+
+			List<AttractionIndex.Neighbor> neighbors = index.withinRadius(location, radius);
+			long expected = catalogue.stream().filter(a -> distance(a, location) <= radius).count();
+
+			assertEquals(expected, neighbors.size());
+			neighbors.forEach(n -> assertTrue(n.distance() <= radius));
+		}
+	}
+
+	@Test
+	public void isWithinAgreesWithWithinRadius() {
+		for (int i = 0; i < 200; i++) {
+			Location location = new Location(randomLatitude(), randomLongitude());
+			double radius = random.nextDouble() * 1500;
+			double[] unitVector = AttractionIndex.unitVector(location);
+
+			Set<Integer> expected = index.withinRadius(location, radius).stream()
+					.map(AttractionIndex.Neighbor::ordinal)
+					.collect(Collectors.toSet());
+
+			for (int ordinal = 0; ordinal < catalogue.size(); ordinal++) {
+				assertEquals(expected.contains(ordinal), index.isWithin(ordinal, unitVector, radius));
+				assertEquals(expected.contains(ordinal), index.isWithin(ordinal, location, radius));
+			}
+		}
+	}
+
+	@Test
+	public void withinRadiusCrossesAntimeridian() {
+		AttractionIndex small = new AttractionIndex(List.of(
+				new Attraction("east", "city", "state", 0, 179.9),
+				new Attraction("west", "city", "state", 0, -179.9)));
+
+		assertEquals(2, small.withinRadius(new Location(0, 180), 10).size());
+	}
+
+	@Test
+	public void unlimitedRadiusReturnsWholeCatalogue() {
+		Location location = new Location(randomLatitude(), randomLongitude());
+
+		assertEquals(catalogue.size(), index.withinRadius(location, Integer.MAX_VALUE).size());
+	}
+
+	private double randomLatitude() {
+		return -85.05112878 + random.nextDouble() * 2 * 85.05112878;
+	}
+
+	private double randomLongitude() {
+		return -180 + random.nextDouble() * 360;
+	}
+
+	private static double distance(Location loc1, Location loc2) {
+		double lat1 = Math.toRadians(loc1.latitude);
+		double lon1 = Math.toRadians(loc1.longitude);
+		double lat2 = Math.toRadians(loc2.latitude);
+		double lon2 = Math.toRadians(loc2.longitude);
+
+		double angle = Math.acos(Math.sin(lat1) * Math.sin(lat2)
+				+ Math.cos(lat1) * Math.cos(lat2) * Math.cos(lon1 - lon2));
+
+		return 1.15077945 * 60 * Math.toDegrees(angle);
+	}
+}
@@ -0,0 +1,91 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.concurrent.Bulkhead;
+import com.openclassrooms.tourguide.concurrent.BulkheadStats;
+import com.openclassrooms.tourguide.concurrent.OverflowPolicy;
+
+/**
+ * Tests unitaires du pool à file bornée.
+ */
+public class TestBulkhead {
+
+	private final CountDownLatch release = new CountDownLatch(1);
+	private Bulkhead bulkhead;
+
+	@AfterEach
+	public void tearDown() {
+		release.countDown();
+		bulkhead.shutdownNow();
+	}
+
+	@Test
+	public void fullQueueRunsOnCaller() throws InterruptedException {
+		bulkhead = saturated(OverflowPolicy.CALLER_RUNS);
+		AtomicReference<Thread> runner = new AtomicReference<>();
+
+		bulkhead.execute(() -> runner.set(Thread.currentThread()));
+
+		assertEquals(Thread.currentThread(), runner.get());
+		BulkheadStats stats = bulkhead.getStats();
+		assertEquals(1, stats.callerRunsTasks());
+		assertEquals(1, stats.activeCount());
+		assertEquals(1, stats.queueDepth());
+	}
+
+	@Test
+	public void fullQueueRejects() throws InterruptedException {
+		bulkhead = saturated(OverflowPolicy.REJECT);
+
+		assertThrows(RejectedExecutionException.class, () -> bulkhead.execute(() -> { }));
+		assertEquals(1, bulkhead.getStats().rejectedTasks());
+	}
+
+	@Test
+	public void queueWaitIsMeasured() throws InterruptedException {
+		bulkhead = saturated(OverflowPolicy.REJECT);
+		TimeUnit.MILLISECONDS.sleep(50);
+		release.countDown();
+		bulkhead.shutdown();
+		assertTrue(bulkhead.awaitTermination(1, TimeUnit.SECONDS));
+
+		// La tâche en file a attendu que la première libère l'unique thread
+		assertTrue(bulkhead.getStats().maxWaitMillis() >= 50);
+		assertEquals(2, bulkhead.getStats().completedTasks());
+	}
+
+	/**
+	 * Un thread occupé et une file d'une place remplie.
+	 */
+	private Bulkhead saturated(OverflowPolicy policy) throws InterruptedException {
+		Bulkhead pool = new Bulkhead("test", 1, 1, policy, Executors.defaultThreadFactory());
+		CountDownLatch started = new CountDownLatch(1);
+		pool.execute(() -> {
+			started.countDown();
+			awaitRelease();
+		});
+		started.await();
+		pool.execute(this::awaitRelease);
+		return pool;
+	}
+
+	private void awaitRelease() {
+		try {
+			release.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.cache.CacheStats;
+import com.openclassrooms.tourguide.cache.ExpiringLruCache;
+
+/**
+ * Tests unitaires du cache borné avec expiration.
+ */
+public class TestExpiringLruCache {
+
+	private final AtomicLong clock = new AtomicLong();
+	private final AtomicInteger loads = new AtomicInteger();
+
+	@Test
+	public void repeatedReadIsServedFromCache() {
+		ExpiringLruCache<String, Integer> cache = new ExpiringLruCache<>(10, Duration.ofMinutes(1), clock::get);
+
+		assertEquals(1, cache.get("a", this::load));
+		assertEquals(1, cache.get("a", this::load));
+
+		CacheStats stats = cache.stats();
+		assertEquals(1, stats.hits());
+		assertEquals(1, stats.misses());
+		assertEquals(0.5, stats.hitRatio());
+	}
+
+	@Test
+	public void expiredEntryIsReloaded() {
+		ExpiringLruCache<String, Integer> cache = new ExpiringLruCache<>(10, Duration.ofMinutes(1), clock::get);
+		cache.get("a", this::load);
+
+		clock.addAndGet(Duration.ofMinutes(1).toNanos());
+
+		assertEquals(2, cache.get("a", this::load));
+		assertEquals(1, cache.stats().evictions());
+	}
+
+	@Test
+	public void leastRecentlyReadEntryIsEvicted() {
+		ExpiringLruCache<String, Integer> cache = new ExpiringLruCache<>(2, Duration.ofMinutes(1), clock::get);
+		cache.get("a", this::load);
+		cache.get("b", this::load);
+		// "a" redevient la plus récemment lue : "b" doit sortir
+		cache.get("a", this::load);
+		cache.get("c", this::load);
+
+		assertEquals(1, cache.get("a", this::load));
+		assertEquals(4, cache.get("b", this::load));
+		assertEquals(2, cache.stats().size());
+	}
+
+	private Integer load(String key) {
+		return loads.incrementAndGet();
+	}
+}
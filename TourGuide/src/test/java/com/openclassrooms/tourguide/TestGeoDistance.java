@@ -0,0 +1,44 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.location.Location;
+import com.openclassrooms.tourguide.geo.GeoDistance;
+
+/**
+ * Tests unitaires du calcul de distance et de son pré-filtre de proximité.
+ */
+public class TestGeoDistance {
+
+	private final Random random = new Random(42);
+
+	@Test
+	public void isWithinMatchesExactDistance() {
+		for (int i = 0; i < 10_000; i++) {
+			Location loc1 = randomLocation();
+			// Points proches et éloignés, pour exercer le pré-filtre comme le calcul exact
+			Location loc2 = i % 2 == 0 ? randomLocation()
+					: new Location(loc1.latitude + random.nextDouble() - 0.5, loc1.longitude + random.nextDouble() - 0.5);
+			double radius = random.nextDouble() * 50;
+
+			assertEquals(GeoDistance.miles(loc1, loc2) <= radius, GeoDistance.isWithin(loc1, loc2, radius));
+		}
+	}
+
+	@Test
+	public void distanceToSelfIsZero() {
+		for (int i = 0; i < 1000; i++) {
+			Location location = randomLocation();
+
+			assertEquals(0, GeoDistance.miles(location, location), GeoDistance.TOLERANCE_MILES);
+		}
+	}
+
+	private Location randomLocation() {
+		return new Location(-85.05112878 + random.nextDouble() * 2 * 85.05112878, -180 + random.nextDouble() * 360);
+	}
+}
@@ -0,0 +1,77 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.location.Location;
+import com.openclassrooms.tourguide.geo.GeoDistance;
+import com.openclassrooms.tourguide.geo.GeoGrid;
+
+/**
+ * Tests unitaires du découpage de la sphère en cellules.
+ */
+public class TestGeoGrid {
+
+	private final Random random = new Random(42);
+
+	@Test
+	public void cellOfPointWithinRadiusIsNeverExcluded() {
+		for (int i = 0; i < 20_000; i++) {
+			double radius = i % 10 == 0 ? random.nextDouble() * 5000 : random.nextDouble() * 50;
+			GeoGrid grid = GeoGrid.forRadius(radius);
+			Location center = randomLocation();
+			// Points proches (y compris au-delà de l'antiméridien et près des pôles) et éloignés
+			Location point = i % 2 == 0 ? randomLocation()
+					: new Location(Math.max(-90, Math.min(90, center.latitude + random.nextDouble() - 0.5)),
+							wrap(center.longitude + (random.nextDouble() - 0.5) * 4));
+
+			if (GeoDistance.isWithin(center, point, radius)) {
+				assertTrue(cellsWithin(grid, center, radius).contains(grid.cellOf(point)));
+			}
+		}
+	}
+
+	@Test
+	public void distantCellsAreExcluded() {
+		GeoGrid grid = GeoGrid.forRadius(10);
+		Location center = new Location(33.817595, -117.922008);
+
+		Set<Long> cells = cellsWithin(grid, center, 10);
+		assertTrue(cells.contains(grid.cellOf(center)));
+		assertTrue(cells.size() <= 9);
+		assertFalse(cells.contains(grid.cellOf(new Location(40.0, -117.922008))));
+		assertFalse(cells.contains(grid.cellOf(new Location(33.817595, -100.0))));
+	}
+
+	@Test
+	public void cellsWrapAroundTheAntimeridian() {
+		GeoGrid grid = GeoGrid.forRadius(50);
+		Location east = new Location(0, 179.9);
+		Location west = new Location(0, -179.9);
+
+		assertEquals(50 / GeoDistance.STATUTE_MILES_PER_DEGREE, grid.getCellDegrees(), 1e-9);
+		assertTrue(cellsWithin(grid, east, 50).contains(grid.cellOf(west)));
+		assertTrue(cellsWithin(grid, west, 50).contains(grid.cellOf(east)));
+	}
+
+	private static Set<Long> cellsWithin(GeoGrid grid, Location center, double radius) {
+		Set<Long> cells = new HashSet<>();
+		grid.forEachCellWithin(center, radius, cells::add);
+		return cells;
+	}
+
+	private Location randomLocation() {
+		return new Location(-90 + random.nextDouble() * 180, -180 + random.nextDouble() * 360);
+	}
+
+	private static double wrap(double longitude) {
+		return longitude > 180 ? longitude - 360 : longitude < -180 ? longitude + 360 : longitude;
+	}
+}
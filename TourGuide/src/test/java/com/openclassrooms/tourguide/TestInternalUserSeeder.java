@@ -0,0 +1,76 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.helper.InternalUserSeeder;
+import com.openclassrooms.tourguide.helper.SeedingMode;
+import com.openclassrooms.tourguide.helper.SeedingReport;
+import com.openclassrooms.tourguide.user.User;
+
+/**
+ * Tests unitaires de la création des utilisateurs internes.
+ */
+public class TestInternalUserSeeder {
+
+	private static final Instant REFERENCE_TIME = Instant.parse("2024-01-01T00:00:00Z");
+	private static final Consumer<User> NO_PREPARATION = user -> {
+	};
+
+	@Test
+	public void sameSeedGeneratesSameUsers() {
+		InternalUserSeeder seeder = new InternalUserSeeder(SeedingMode.EAGER, 42, 3, REFERENCE_TIME);
+		InternalUserSeeder other = new InternalUserSeeder(SeedingMode.LAZY, 42, 3, REFERENCE_TIME);
+
+		User user = seeder.generate(7, NO_PREPARATION);
+		User same = other.generate(7, NO_PREPARATION);
+
+		assertEquals("internalUser7", user.getUserName());
+		assertEquals(user.getUserId(), same.getUserId());
+		assertEquals(4, user.getUserId().version());
+		List<VisitedLocation> locations = user.getVisitedLocations();
+		List<VisitedLocation> sameLocations = same.getVisitedLocations();
+		assertEquals(3, locations.size());
+		for (int i = 0; i < locations.size(); i++) {
+			assertEquals(locations.get(i).location.latitude, sameLocations.get(i).location.latitude);
+			assertEquals(locations.get(i).location.longitude, sameLocations.get(i).location.longitude);
+			assertEquals(locations.get(i).timeVisited, sameLocations.get(i).timeVisited);
+		}
+		assertNotEquals(user.getUserId(),
+				new InternalUserSeeder(SeedingMode.EAGER, 43, 3, REFERENCE_TIME).generate(7, NO_PREPARATION).getUserId());
+	}
+
+	@Test
+	public void parallelSeedingMatchesSequentialGeneration() {
+		InternalUserSeeder seeder = new InternalUserSeeder(SeedingMode.EAGER, 42, 2, REFERENCE_TIME);
+		Map<String, UUID> seeded = new ConcurrentHashMap<>();
+
+		SeedingReport report = seeder.seedAll(1000, NO_PREPARATION,
+				user -> seeded.put(user.getUserName(), user.getUserId()));
+
+		assertEquals(1000, report.users());
+		assertEquals(1000, seeded.size());
+		assertEquals(1000, seeded.values().stream().distinct().count());
+		assertEquals(seeder.generate(500, NO_PREPARATION).getUserId(), seeded.get("internalUser500"));
+	}
+
+	@Test
+	public void indexOfOnlyAcceptsInternalUserNames() {
+		assertEquals(12, InternalUserSeeder.indexOf("internalUser12", 100));
+		assertEquals(-1, InternalUserSeeder.indexOf("internalUser100", 100));
+		assertEquals(-1, InternalUserSeeder.indexOf("internalUser012", 100));
+		assertEquals(-1, InternalUserSeeder.indexOf("internalUser", 100));
+		assertEquals(-1, InternalUserSeeder.indexOf("jon", 100));
+		assertEquals(-1, InternalUserSeeder.indexOf("internalUser1", 0));
+	}
+}
@@ -0,0 +1,190 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.user.HistoryRetention;
+import com.openclassrooms.tourguide.user.LocationHistory;
+import com.openclassrooms.tourguide.user.LocationStorage;
+
+/**
+ * Tests unitaires de l'historique des positions et de sa rétention.
+ */
+public class TestLocationHistory {
+
+	private final UUID userId = UUID.randomUUID();
+
+	@Test
+	public void snapshotIsStableAndOrdered() {
+		LocationHistory history = new LocationHistory();
+		List<VisitedLocation> appended = append(history, 200, new Date());
+
+		LocationHistory.Snapshot snapshot = history.snapshot();
+		history.append(location(new Date()));
+
+		assertEquals(200, snapshot.size());
+		assertEquals(appended, new ArrayList<>(snapshot));
+		assertEquals(199, snapshot.sequenceAt(199));
+		assertSame(appended.get(199), snapshot.last());
+		assertEquals(201, history.size());
+	}
+
+	@Test
+	public void retentionByCountKeepsMostRecentLocations() {
+		LocationHistory history = new LocationHistory(new HistoryRetention(100, Duration.ZERO, Duration.ZERO, 1));
+		List<VisitedLocation> appended = append(history, 1000, new Date());
+
+		LocationHistory.Snapshot snapshot = history.snapshot();
+		assertTrue(snapshot.size() <= 100 + 64);
+		assertSame(appended.get(999), history.last());
+		for (int i = 0; i < snapshot.size(); i++) {
+			assertSame(appended.get((int) snapshot.sequenceAt(i)), snapshot.get(i));
+		}
+	}
+
+	@Test
+	public void oldLocationsAreDownsampledThenExpired() {
+		long now = System.currentTimeMillis();
+		LocationHistory history = new LocationHistory(
+				new HistoryRetention(0, Duration.ofDays(7), Duration.ofDays(1), 4));
+		append(history, 64, new Date(now - Duration.ofDays(10).toMillis()));
+		append(history, 64, new Date(now - Duration.ofDays(2).toMillis()));
+		append(history, 65, new Date(now));
+
+		// Premier bloc expiré, deuxième réduit à une position sur 4, troisième intact, plus le dernier ajout
+		LocationHistory.Snapshot snapshot = history.snapshot();
+		assertEquals(16 + 64 + 1, snapshot.size());
+		assertEquals(64, snapshot.sequenceAt(0));
+		assertEquals(68, snapshot.sequenceAt(1));
+		assertEquals(0, snapshot.indexOfSequence(0));
+		assertEquals(1, snapshot.indexOfSequence(66));
+		assertEquals(16, snapshot.indexOfSequence(127));
+		assertEquals(16, snapshot.indexOfSequence(128));
+		assertEquals(snapshot.size(), snapshot.indexOfSequence(snapshot.nextSequence()));
+	}
+
+	@Test
+	public void columnarStorageRestoresVisitedLocations() {
+		LocationHistory history = new LocationHistory(HistoryRetention.unbounded(), LocationStorage.COLUMNAR);
+		VisitedLocation original = new VisitedLocation(userId, new Location(48.85, 2.35), new Date(1_000));
+		history.append(original);
+		history.append(new VisitedLocation(userId, new Location(0, 0), null));
+
+		VisitedLocation restored = history.snapshot().get(0);
+		assertEquals(userId, restored.userId);
+		assertEquals(48.85, restored.location.latitude);
+		assertEquals(2.35, restored.location.longitude);
+		assertEquals(original.timeVisited, restored.timeVisited);
+		assertNull(history.last().timeVisited);
+	}
+
+	@Test
+	public void storageChangeAppliesToNextChunks() {
+		LocationHistory history = new LocationHistory();
+		List<VisitedLocation> appended = append(history, 64, new Date());
+		history.setStorage(LocationStorage.COLUMNAR);
+		append(history, 10, new Date());
+
+		LocationHistory.Snapshot snapshot = history.snapshot();
+		assertSame(appended.get(63), snapshot.get(63));
+		assertEquals(74, snapshot.size());
+		assertEquals(73, snapshot.sequenceAt(73));
+	}
+
+	@Test
+	public void clearKeepsSequencesIncreasing() {
+		LocationHistory history = new LocationHistory();
+		append(history, 3, new Date());
+
+		history.clear();
+		assertNull(history.last());
+
+		history.append(location(new Date()));
+		assertEquals(3, history.snapshot().sequenceAt(0));
+	}
+
+	@Test
+	public void growingFirstChunkKeepsPublishedSnapshots() {
+		LocationHistory history = new LocationHistory(HistoryRetention.unbounded(), LocationStorage.COLUMNAR);
+		for (int i = 0; i < 4; i++) {
+			history.append(new VisitedLocation(userId, new Location(i, i), new Date(i)));
+		}
+		LocationHistory.Snapshot beforeGrowth = history.snapshot();
+
+		// Le cinquième ajout remplace le premier bloc par un bloc deux fois plus grand
+		for (int i = 4; i < 100; i++) {
+			history.append(new VisitedLocation(userId, new Location(i, i), new Date(i)));
+		}
+
+		assertEquals(4, beforeGrowth.size());
+		assertEquals(3.0, beforeGrowth.last().location.latitude);
+		LocationHistory.Snapshot snapshot = history.snapshot();
+		for (int i = 0; i < 100; i++) {
+			assertEquals(i, snapshot.locationAt(i).latitude);
+			assertEquals(i, snapshot.sequenceAt(i));
+		}
+	}
+
+	/**
+	 * Mémoire retenue par 100 000 historiques de 3 positions, taille des utilisateurs internes :
+	 * le stockage en colonnes doit rester plus compact que les objets, malgré le premier bloc.
+	 */
+	@Test
+	public void columnarStorageRetainsLessHeapForShortHistories() {
+		long objects = retainedBytes(LocationStorage.OBJECTS, 100_000, 3);
+		long columnar = retainedBytes(LocationStorage.COLUMNAR, 100_000, 3);
+
+		assertTrue(columnar < objects * 0.8, "COLUMNAR " + columnar + " octets, OBJECTS " + objects + " octets");
+	}
+
+	private long retainedBytes(LocationStorage storage, int users, int historyLength) {
+		long before = usedHeapAfterGc();
+		List<LocationHistory> histories = new ArrayList<>(users);
+		for (int u = 0; u < users; u++) {
+			LocationHistory history = new LocationHistory(HistoryRetention.unbounded(), storage);
+			for (int i = 0; i < historyLength; i++) {
+				// Nouvelle position à chaque ajout, comme les réponses de GpsUtil
+				history.append(new VisitedLocation(userId, new Location(u, i), new Date()));
+			}
+			histories.add(history);
+		}
+		long retained = usedHeapAfterGc() - before;
+		Reference.reachabilityFence(histories);
+		return retained;
+	}
+
+	private static long usedHeapAfterGc() {
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+
+	private List<VisitedLocation> append(LocationHistory history, int count, Date timeVisited) {
+		List<VisitedLocation> appended = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			VisitedLocation visitedLocation = location(timeVisited);
+			history.append(visitedLocation);
+			appended.add(visitedLocation);
+		}
+		return appended;
+	}
+
+	private VisitedLocation location(Date timeVisited) {
+		return new VisitedLocation(userId, new Location(0, 0), timeVisited);
+	}
+}
@@ -114,4 +114,33 @@ public class TestPerformance {
 		// Vérifie que le temps d'exécution est inférieur à la limite de 20 minutes.
 		assertTrue(TimeUnit.MINUTES.toSeconds(20) >= TimeUnit.MILLISECONDS.toSeconds(stopWatch.getTime()));
 	}
+
+	@Test
+	public void highVolumeGetRewardsBulk() {
+		StopWatch stopWatch = new StopWatch();
+		stopWatch.start();
+
+		// Simule une visite d'une autre attraction que highVolumeGetRewards : le contexte Spring étant
+		// partagé, la récompense vérifiée ici ne peut provenir que du calcul groupé.
+		Attraction attraction = gpsUtil.getAttractions().get(1);
+		List<User> allUsers = tourGuideService.getAllUsers();
+		allUsers.forEach(u -> u.addToVisitedLocations(new VisitedLocation(u.getUserId(), attraction, new Date())));
+
+		// Calcul groupé : les positions de tous les utilisateurs sont jointes aux attractions
+		// cellule géographique par cellule, en parallèle. On attend l'obtention de tous les points.
+		rewardsService.calculateRewardsForAll(allUsers).join();
+
+		// Vérifie que chaque utilisateur a bien reçu la récompense de cette attraction.
+		for (User user : allUsers) {
+			assertTrue(user.getUserRewards().stream().anyMatch(r -> r.attraction.attractionName.equals(attraction.attractionName)),
+					"Chaque utilisateur devrait être récompensé pour " + attraction.attractionName + ".");
+		}
+
+		stopWatch.stop();
+
+		System.out.println("highVolumeGetRewardsBulk: Time Elapsed: " + TimeUnit.MILLISECONDS.toSeconds(stopWatch.getTime())
+				+ " seconds.");
+		// Vérifie que le temps d'exécution est inférieur à la limite de 20 minutes.
+		assertTrue(TimeUnit.MINUTES.toSeconds(20) >= TimeUnit.MILLISECONDS.toSeconds(stopWatch.getTime()));
+	}
 }
\ No newline at end of file
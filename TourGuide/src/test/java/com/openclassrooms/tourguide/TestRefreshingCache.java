@@ -0,0 +1,131 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.cache.RefreshingCache;
+
+/**
+ * Tests unitaires du cache asynchrone avec rafraîchissement.
+ */
+public class TestRefreshingCache {
+
+	private final AtomicLong clock = new AtomicLong();
+	private final AtomicInteger loads = new AtomicInteger();
+	// Chargements en attente, terminés à la main par les tests
+	private final List<CompletableFuture<Integer>> pendingLoads = new ArrayList<>();
+
+	@Test
+	public void concurrentMissesShareOneLoad() {
+		RefreshingCache<String, Integer> cache = newCache(10);
+
+		CompletableFuture<Integer> first = cache.get("a");
+		CompletableFuture<Integer> second = cache.get("a");
+		pendingLoads.get(0).complete(7);
+
+		assertEquals(7, first.join());
+		assertEquals(7, second.join());
+		assertEquals(1, loads.get());
+		assertEquals(1, cache.stats().hits());
+		assertEquals(1, cache.stats().misses());
+	}
+
+	@Test
+	public void staleValueIsServedWhileRefreshing() {
+		RefreshingCache<String, Integer> cache = newCache(10);
+		cache.get("a");
+		pendingLoads.get(0).complete(1);
+
+		clock.addAndGet(Duration.ofMinutes(2).toNanos());
+
+		// L'ancienne valeur est servie, un seul rechargement est lancé
+		assertEquals(1, cache.get("a").join());
+		assertEquals(1, cache.get("a").join());
+		assertEquals(1, cache.getRefreshCount());
+		pendingLoads.get(1).complete(2);
+
+		assertEquals(2, cache.get("a").join());
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	public void failedLoadIsNotCached() {
+		RefreshingCache<String, Integer> cache = newCache(10);
+		CompletableFuture<Integer> failed = cache.get("a");
+		pendingLoads.get(0).completeExceptionally(new IllegalStateException("RewardCentral indisponible"));
+
+		assertThrows(CompletionException.class, failed::join);
+		cache.get("a");
+		pendingLoads.get(1).complete(3);
+
+		assertEquals(3, cache.get("a").join());
+		assertEquals(1, cache.getLoadFailureCount());
+	}
+
+	@Test
+	public void oldestEntryIsEvictedBeyondMaxEntries() {
+		RefreshingCache<String, Integer> cache = newCache(2);
+		cache.get("a");
+		cache.get("b");
+		cache.get("c");
+		pendingLoads.forEach(load -> load.complete(0));
+
+		assertEquals(2, cache.stats().size());
+		assertEquals(1, cache.stats().evictions());
+		cache.get("a");
+		assertEquals(4, loads.get());
+	}
+
+	@Test
+	public void reloadAfterExpiryKeepsOneKeyAndEvictsOldestLiveEntry() {
+		RefreshingCache<String, Integer> cache = newCache(2);
+		cache.get("a");
+		cache.get("b");
+		pendingLoads.forEach(load -> load.complete(0));
+
+		// « a » expire puis est rechargé plusieurs fois : une seule clé suivie par entrée
+		for (int i = 0; i < 5; i++) {
+			clock.addAndGet(Duration.ofMinutes(6).toNanos());
+			cache.get("a");
+			pendingLoads.get(pendingLoads.size() - 1).complete(i);
+			assertEquals(2, cache.getTrackedKeyCount());
+		}
+
+		// « b », chargé le plus anciennement, est retiré ; « a », rechargé à l'instant, reste en cache
+		cache.get("c");
+		pendingLoads.get(pendingLoads.size() - 1).complete(9);
+		int loadsBefore = loads.get();
+		assertEquals(4, cache.get("a").join());
+		assertEquals(loadsBefore, loads.get());
+		assertEquals(2, cache.getTrackedKeyCount());
+		assertEquals(2, cache.stats().size());
+	}
+
+	@Test
+	public void failedLoadIsNoLongerTracked() {
+		RefreshingCache<String, Integer> cache = newCache(10);
+		cache.get("a");
+		pendingLoads.get(0).completeExceptionally(new IllegalStateException("RewardCentral indisponible"));
+
+		assertEquals(0, cache.getTrackedKeyCount());
+	}
+
+	private RefreshingCache<String, Integer> newCache(int maxEntries) {
+		return new RefreshingCache<>(key -> {
+			loads.incrementAndGet();
+			CompletableFuture<Integer> load = new CompletableFuture<>();
+			pendingLoads.add(load);
+			return load;
+		}, maxEntries, Duration.ofMinutes(5), Duration.ofMinutes(1), clock::get);
+	}
+}
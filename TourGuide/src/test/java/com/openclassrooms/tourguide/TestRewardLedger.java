@@ -0,0 +1,65 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.user.RewardLedger;
+import com.openclassrooms.tourguide.user.UserReward;
+
+/**
+ * Tests unitaires du registre de récompenses.
+ */
+public class TestRewardLedger {
+
+	@Test
+	public void duplicateAttractionIsIgnored() {
+		RewardLedger ledger = new RewardLedger();
+
+		assertTrue(ledger.add(reward(new Attraction("Disneyland", "Anaheim", "CA", 33.81, -117.92), 100)));
+		// Même attraction renvoyée par un autre appel à getAttractions : nouvel UUID, même nom
+		assertFalse(ledger.add(reward(new Attraction("Disneyland", "Anaheim", "CA", 33.81, -117.92), 300)));
+		assertTrue(ledger.add(reward(new Attraction("Jackson Hole", "Jackson Hole", "WY", 43.58, -110.82), 50)));
+
+		assertEquals(2, ledger.size());
+		assertEquals(150, ledger.getTotalRewardPoints());
+		assertEquals("Jackson Hole", ledger.asList().get(1).attraction.attractionName);
+	}
+
+	@Test
+	public void concurrentAddsKeepOneRewardPerAttraction() {
+		RewardLedger ledger = new RewardLedger();
+		List<Attraction> attractions = IntStream.range(0, 100)
+				.mapToObj(i -> new Attraction("attraction" + i, "city", "state", 0, 0))
+				.toList();
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
+		for (int thread = 0; thread < 8; thread++) {
+			futures.add(CompletableFuture.runAsync(() -> attractions.forEach(a -> ledger.add(reward(a, 10))), executor));
+		}
+		futures.forEach(CompletableFuture::join);
+		executor.shutdown();
+
+		assertEquals(100, ledger.size());
+		assertEquals(100, ledger.asList().stream().map(r -> r.attraction.attractionName).distinct().count());
+		assertEquals(1000, ledger.getTotalRewardPoints());
+	}
+
+	private static UserReward reward(Attraction attraction, int points) {
+		return new UserReward(new VisitedLocation(UUID.randomUUID(), attraction, new Date()), attraction, points);
+	}
+}
@@ -0,0 +1,143 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.service.RewardPipeline;
+import com.openclassrooms.tourguide.user.User;
+
+/**
+ * Tests unitaires de l'étage des récompenses.
+ */
+public class TestRewardPipeline {
+
+	// Calculs lancés par le worker, terminés à la main par les tests
+	private final BlockingQueue<CompletableFuture<Void>> evaluations = new LinkedBlockingQueue<>();
+	private final List<UUID> evaluatedUsers = new CopyOnWriteArrayList<>();
+	private final RewardPipeline pipeline = new RewardPipeline(this::evaluate, Executors.defaultThreadFactory(), 1, 1,
+			10);
+
+	@AfterEach
+	public void tearDown() {
+		pipeline.shutdown();
+	}
+
+	@Test
+	public void pendingEventsForSameUserAreCoalesced() throws Exception {
+		User busy = newUser("busy");
+		User user = newUser("jon");
+		pipeline.publish(busy);
+		CompletableFuture<Void> busyEvaluation = nextEvaluation();
+
+		// Le seul worker est occupé : les trois événements attendent dans la file
+		CompletableFuture<Void> first = pipeline.publish(user);
+		CompletableFuture<Void> second = pipeline.publish(user);
+		CompletableFuture<Void> third = pipeline.publish(user);
+		assertEquals(1, pipeline.getQueueDepth());
+		assertEquals(2, pipeline.getCoalescedCount());
+
+		busyEvaluation.complete(null);
+		nextEvaluation().complete(null);
+
+		CompletableFuture.allOf(first, second, third).get(5, TimeUnit.SECONDS);
+		assertEquals(List.of(busy.getUserId(), user.getUserId()), evaluatedUsers);
+		assertEquals(2, pipeline.getEvaluatedCount());
+	}
+
+	@Test
+	public void eventPublishedDuringEvaluationTriggersAnotherOne() throws Exception {
+		User user = newUser("jon");
+		CompletableFuture<Void> first = pipeline.publish(user);
+		CompletableFuture<Void> runningEvaluation = nextEvaluation();
+
+		// Le calcul en cours a pu lire l'historique avant cette position : elle n'est pas regroupée
+		CompletableFuture<Void> second = pipeline.publish(user);
+		runningEvaluation.complete(null);
+		first.get(5, TimeUnit.SECONDS);
+		assertFalse(second.isDone());
+
+		nextEvaluation().complete(null);
+		second.get(5, TimeUnit.SECONDS);
+		assertEquals(2, evaluatedUsers.size());
+		assertEquals(0, pipeline.getCoalescedCount());
+	}
+
+	@Test
+	public void workerStartsEvaluationsWithoutWaitingForThem() throws Exception {
+		RewardPipeline concurrent = new RewardPipeline(this::evaluate, Executors.defaultThreadFactory(), 1, 3, 10);
+		try {
+			List<CompletableFuture<Void>> results = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				results.add(concurrent.publish(newUser("user" + i)));
+			}
+
+			// Un seul worker, trois calculs en cours : le quatrième attend qu'une place se libère
+			List<CompletableFuture<Void>> running = List.of(nextEvaluation(), nextEvaluation(), nextEvaluation());
+			assertNull(evaluations.poll(200, TimeUnit.MILLISECONDS));
+			assertEquals(3, concurrent.getInFlightCount());
+
+			running.get(0).complete(null);
+			nextEvaluation().complete(null);
+			CompletableFuture.allOf(results.get(0), results.get(3)).get(5, TimeUnit.SECONDS);
+			assertEquals(2, concurrent.getEvaluatedCount());
+		} finally {
+			concurrent.shutdown();
+		}
+	}
+
+	@Test
+	public void fullQueueDropsEventsWithoutBlockingPublisher() throws Exception {
+		pipeline.publish(newUser("busy"));
+		nextEvaluation();
+
+		// Calcul en cours et file de 10 : au plus 11 utilisateurs acceptés (un prélevé par le worker)
+		List<CompletableFuture<Void>> results = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			results.add(pipeline.publish(newUser("user" + i)));
+		}
+
+		long rejected = results.stream().filter(CompletableFuture::isCompletedExceptionally).count();
+		assertTrue(rejected >= 9 && rejected <= 10, "Événements abandonnés : " + rejected);
+		assertEquals(rejected, pipeline.getDroppedCount());
+		ExecutionException error = assertThrows(ExecutionException.class,
+				() -> results.get(results.size() - 1).get(5, TimeUnit.SECONDS));
+		assertInstanceOf(RejectedExecutionException.class, error.getCause());
+	}
+
+	private CompletableFuture<Void> evaluate(User user) {
+		evaluatedUsers.add(user.getUserId());
+		CompletableFuture<Void> evaluation = new CompletableFuture<>();
+		evaluations.add(evaluation);
+		return evaluation;
+	}
+
+	private CompletableFuture<Void> nextEvaluation() throws InterruptedException {
+		CompletableFuture<Void> evaluation = evaluations.poll(5, TimeUnit.SECONDS);
+		assertNotNull(evaluation);
+		return evaluation;
+	}
+
+	private static User newUser(String userName) {
+		return new User(UUID.randomUUID(), userName, "000", userName + "@tourGuide.com");
+	}
+}
@@ -0,0 +1,134 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import rewardCentral.RewardCentral;
+import com.openclassrooms.tourguide.concurrent.DownstreamLimiter;
+import com.openclassrooms.tourguide.service.RewardPointsBatcher;
+
+/**
+ * Tests unitaires du regroupement des appels à RewardCentral.
+ */
+public class TestRewardPointsBatcher {
+
+	// RewardCentral simulé : répond les points de l'ordre d'appel, une fois la barrière levée
+	private final CountDownLatch gate = new CountDownLatch(1);
+	private final AtomicInteger calls = new AtomicInteger();
+	private final RewardCentral rewardCentral = new RewardCentral() {
+		@Override
+		public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+			try {
+				gate.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return calls.incrementAndGet();
+		}
+	};
+	private RewardPointsBatcher batcher;
+
+	@AfterEach
+	public void tearDown() {
+		gate.countDown();
+		batcher.shutdown();
+	}
+
+	@Test
+	public void fullBatchIsResolvedWithoutWaitingForLinger() {
+		gate.countDown();
+		batcher = newBatcher(4, 60_000, 100, 100);
+
+		List<CompletableFuture<Integer>> futures = submit(4);
+
+		// Le lot est complet : il part sans attendre la minute de linger
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).orTimeout(5, TimeUnit.SECONDS).join();
+		assertEquals(List.of(1, 2, 3, 4), futures.stream().map(CompletableFuture::join).sorted().toList());
+	}
+
+	@Test
+	public void lingerGroupsRequestsIntoOneBatch() {
+		gate.countDown();
+		batcher = newBatcher(100, 200, 100, 100);
+
+		List<CompletableFuture<Integer>> futures = submit(3);
+
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).orTimeout(5, TimeUnit.SECONDS).join();
+		assertEquals(1, batcher.getBatchCount());
+		// Chaque appelant reçoit sa propre réponse
+		assertEquals(List.of(1, 2, 3), futures.stream().map(CompletableFuture::join).sorted().toList());
+	}
+
+	@Test
+	public void requestsBeyondWindowWaitThenAreRejectedWhenQueueIsFull() {
+		batcher = newBatcher(1, 0, 2, 3);
+
+		// RewardCentral bloqué : le dépôt rend la main même fenêtre pleine
+		List<CompletableFuture<Integer>> futures = submit(5);
+
+		assertEquals(2, batcher.getInFlightCount());
+		assertEquals(3, batcher.getWaitingCount());
+		futures.forEach(future -> assertFalse(future.isDone()));
+
+		// File d'attente pleine : la demande suivante est refusée aussitôt
+		assertRejected(batcher.submit(UUID.randomUUID(), UUID.randomUUID()));
+		assertEquals(1, batcher.getRejectedCount());
+		assertEquals(3, batcher.getWaitingCount());
+
+		gate.countDown();
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).orTimeout(5, TimeUnit.SECONDS).join();
+		assertEquals(0, batcher.getInFlightCount());
+		assertEquals(0, batcher.getWaitingCount());
+		assertEquals(5, calls.get());
+	}
+
+	@Test
+	public void requestsAreRejectedAfterShutdown() {
+		batcher = newBatcher(1, 0, 1, 10);
+		List<CompletableFuture<Integer>> queued = submit(3);
+
+		batcher.shutdown();
+		CompletableFuture<Integer> late = batcher.submit(UUID.randomUUID(), UUID.randomUUID());
+
+		// La première demande occupe la fenêtre ; les suivantes, en attente, sont rejetées
+		for (CompletableFuture<Integer> future : queued.subList(1, queued.size())) {
+			assertRejected(future);
+		}
+		assertRejected(late);
+	}
+
+	private static void assertRejected(CompletableFuture<Integer> future) {
+		CompletionException e = assertThrows(CompletionException.class,
+				() -> future.orTimeout(5, TimeUnit.SECONDS).join());
+		assertTrue(e.getCause() instanceof RejectedExecutionException);
+	}
+
+	private RewardPointsBatcher newBatcher(int maxBatchSize, long lingerMillis, int maxInFlight, int maxWaiting) {
+		return new RewardPointsBatcher(rewardCentral, new DownstreamLimiter("rewardCentral", 4),
+				Executors.defaultThreadFactory(), 1, maxBatchSize, lingerMillis, maxInFlight, maxWaiting);
+	}
+
+	private List<CompletableFuture<Integer>> submit(int count) {
+		List<CompletableFuture<Integer>> futures = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			futures.add(batcher.submit(UUID.randomUUID(), UUID.randomUUID()));
+		}
+		return futures;
+	}
+}
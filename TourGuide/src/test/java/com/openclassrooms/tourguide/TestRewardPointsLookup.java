@@ -0,0 +1,81 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import gpsUtil.location.Attraction;
+import rewardCentral.RewardCentral;
+import com.openclassrooms.tourguide.cache.RefreshingCache;
+import com.openclassrooms.tourguide.concurrent.DownstreamLimiter;
+import com.openclassrooms.tourguide.geo.AttractionIndex;
+import com.openclassrooms.tourguide.service.RewardPointsBatcher;
+import com.openclassrooms.tourguide.service.RewardPointsKey;
+import com.openclassrooms.tourguide.service.RewardPointsLookup;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.user.User;
+
+/**
+ * Tests unitaires des points de récompense de /getNearbyAttractions : délai, repli et cache.
+ */
+public class TestRewardPointsLookup {
+
+	private final Attraction attraction = new Attraction("Disneyland", "Anaheim", "CA", 33.81, -117.92);
+	private final User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+	private ExecutorService executor;
+	private RewardPointsBatcher batcher;
+	private RewardsService rewardsService;
+	private RewardPointsLookup lookup;
+
+	@BeforeEach
+	public void setUp() {
+		// RewardCentral simulé, plus lent que le délai accordé
+		RewardCentral slowRewardCentral = new RewardCentral() {
+			@Override
+			public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+				try {
+					TimeUnit.MILLISECONDS.sleep(300);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return 42;
+			}
+		};
+		executor = Executors.newFixedThreadPool(2);
+		batcher = new RewardPointsBatcher(slowRewardCentral, new DownstreamLimiter("rewardCentral", 4),
+				Executors.defaultThreadFactory(), 1, 8, 0, 100, 100);
+		RefreshingCache<RewardPointsKey, Integer> cache = new RefreshingCache<>(
+				key -> batcher.submit(key.attractionId(), key.userId()), 100, Duration.ofMinutes(1), Duration.ZERO);
+		rewardsService = new RewardsService(new AttractionIndex(List.of(attraction)), cache, executor,
+				new SimpleMeterRegistry());
+		lookup = new RewardPointsLookup(rewardsService, Duration.ofMillis(50));
+	}
+
+	@AfterEach
+	public void tearDown() {
+		batcher.shutdown();
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void lateAnswerFallsBackThenFillsCache() throws InterruptedException {
+		assertNull(lookup.lookup(attraction, user).join());
+		assertEquals(1, lookup.getFallbackCount());
+
+		// La réponse arrivée après le délai est servie par le cache à la requête suivante
+		TimeUnit.MILLISECONDS.sleep(500);
+		assertEquals(42, lookup.lookup(attraction, user).join());
+		assertEquals(1, rewardsService.getRewardPointsCacheStats().hits());
+	}
+}
@@ -70,6 +70,46 @@ public class TestRewardsService {
 		assertEquals(1, userRewards.size());
 	}
 
+	@Test
+	public void calculateRewardsOnlyEvaluatesNewLocations() {
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		List<Attraction> attractions = gpsUtil.getAttractions();
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attractions.get(0), new Date()));
+
+		rewardsService.calculateRewards(user).join();
+		// Un second calcul sans nouvel emplacement ne doit rien ajouter
+		rewardsService.calculateRewards(user).join();
+		assertEquals(1, user.getUserRewards().size());
+
+		// Seul le nouvel emplacement est évalué et donne une nouvelle récompense
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attractions.get(1), new Date()));
+		rewardsService.calculateRewards(user).join();
+		assertEquals(2, user.getUserRewards().size());
+	}
+
+	@Test
+	public void calculateRewardsForAllMatchesPerUserEvaluation() {
+		List<Attraction> attractions = gpsUtil.getAttractions();
+		List<User> users = List.of(new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com"),
+				new User(UUID.randomUUID(), "ann", "000", "ann@tourGuide.com"));
+		users.get(0).addToVisitedLocations(new VisitedLocation(users.get(0).getUserId(), attractions.get(0), new Date()));
+		users.get(0).addToVisitedLocations(new VisitedLocation(users.get(0).getUserId(), attractions.get(0), new Date()));
+		users.get(1).addToVisitedLocations(new VisitedLocation(users.get(1).getUserId(), attractions.get(1), new Date()));
+
+		rewardsService.calculateRewardsForAll(users).join();
+		assertEquals(1, users.get(0).getUserRewards().size());
+		assertEquals(attractions.get(1).attractionName, users.get(1).getUserRewards().get(0).attraction.attractionName);
+
+		// Les positions déjà évaluées en groupe ne sont pas réévaluées par le calcul par utilisateur
+		rewardsService.calculateRewards(users.get(0)).join();
+		assertEquals(1, users.get(0).getUserRewards().size());
+
+		users.get(0).addToVisitedLocations(new VisitedLocation(users.get(0).getUserId(), attractions.get(2), new Date()));
+		rewardsService.calculateRewardsForAll(users).join();
+		assertEquals(2, users.get(0).getUserRewards().size());
+		assertEquals(1, users.get(1).getUserRewards().size());
+	}
+
 	@Test
 	public void isWithinAttractionProximity() {
 		Attraction attraction = gpsUtil.getAttractions().get(0);
@@ -83,8 +123,11 @@ public class TestRewardsService {
 		rewardsService.setProximityBuffer(Integer.MAX_VALUE);
 		InternalTestHelper.setInternalUserNumber(1);
 
-		// Récupère le premier utilisateur de test.
-		User user = tourGuideService.getAllUsers().get(0);
+		// Le contexte Spring est partagé entre classes de test : on ne dépend pas des utilisateurs
+		// laissés par les autres tests, on crée un utilisateur avec une position connue.
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), gpsUtil.getAttractions().get(0), new Date()));
+		tourGuideService.addUser(user);
 
 		// Calcule les récompenses et attend la fin de l'opération asynchrone.
 		rewardsService.calculateRewards(user).join();
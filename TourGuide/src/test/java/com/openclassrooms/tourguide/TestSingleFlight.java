@@ -0,0 +1,73 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.concurrent.SingleFlight;
+
+/**
+ * Tests unitaires du regroupement des traitements concurrents.
+ */
+public class TestSingleFlight {
+
+	private final SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+	private final List<CompletableFuture<Integer>> executions = new ArrayList<>();
+	private final AtomicInteger started = new AtomicInteger();
+
+	@Test
+	public void joinSharesRunningExecution() {
+		CompletableFuture<Integer> first = singleFlight.join("user", this::execute);
+		CompletableFuture<Integer> second = singleFlight.join("user", this::execute);
+		assertEquals(1, started.get());
+
+		executions.get(0).complete(42);
+		assertEquals(42, first.join());
+		assertEquals(42, second.join());
+
+		// Une fois l'exécution terminée, un nouvel appel relance l'action
+		singleFlight.join("user", this::execute);
+		assertEquals(2, started.get());
+		assertEquals(1, singleFlight.getSharedCallCount());
+	}
+
+	@Test
+	public void coalesceRunsOneTrailingExecution() {
+		CompletableFuture<Integer> first = singleFlight.coalesce("user", this::execute);
+		CompletableFuture<Integer> second = singleFlight.coalesce("user", this::execute);
+		CompletableFuture<Integer> third = singleFlight.coalesce("user", this::execute);
+		assertEquals(1, started.get());
+
+		// La fin de la première exécution lance l'exécution planifiée, partagée par les suivants
+		executions.get(0).complete(1);
+		assertEquals(1, first.join());
+		assertEquals(2, started.get());
+
+		executions.get(1).complete(2);
+		assertEquals(2, second.join());
+		assertEquals(2, third.join());
+		assertEquals(0, singleFlight.getInFlightCount());
+	}
+
+	@Test
+	public void failedExecutionReleasesKey() {
+		CompletableFuture<Integer> failed = singleFlight.join("user", this::execute);
+		executions.get(0).completeExceptionally(new IllegalStateException());
+
+		assertTrue(failed.isCompletedExceptionally());
+		assertEquals(0, singleFlight.getInFlightCount());
+	}
+
+	private CompletableFuture<Integer> execute() {
+		started.incrementAndGet();
+		CompletableFuture<Integer> execution = new CompletableFuture<>();
+		executions.add(execution);
+		return execution;
+	}
+}
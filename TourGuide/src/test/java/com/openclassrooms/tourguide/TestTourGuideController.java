@@ -0,0 +1,55 @@
+package com.openclassrooms.tourguide;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.user.User;
+
+/**
+ * Tests des réponses d'erreur des points d'entrée : utilisateur inconnu et paramètres invalides.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class TestTourGuideController {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private TourGuideService tourGuideService;
+
+	@BeforeEach
+	public void setUp() {
+		tourGuideService.tracker.stopTracking();
+		if (tourGuideService.getUser("jon") == null) {
+			tourGuideService.addUser(new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com"));
+		}
+	}
+
+	@Test
+	public void unknownUserIsNotFound() throws Exception {
+		for (String endpoint : new String[] { "/getLocation", "/getNearbyAttractions", "/getRewards", "/getTripDeals" }) {
+			mockMvc.perform(get(endpoint).param("userName", "unknown")).andExpect(status().isNotFound());
+		}
+	}
+
+	@Test
+	public void invalidNearbyParametersAreRejected() throws Exception {
+		mockMvc.perform(get("/getNearbyAttractions").param("userName", "jon").param("count", "0"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/getNearbyAttractions").param("userName", "jon").param("count", "51"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/getNearbyAttractions").param("userName", "jon").param("radius", "-1"))
+				.andExpect(status().isBadRequest());
+	}
+}
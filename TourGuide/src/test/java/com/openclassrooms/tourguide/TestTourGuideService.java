@@ -1,10 +1,17 @@
 package com.openclassrooms.tourguide;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,9 +19,12 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import gpsUtil.GpsUtil;
 import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
 import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.dto.NearbyAttractionDTO;
 import com.openclassrooms.tourguide.helper.InternalTestHelper;
 import com.openclassrooms.tourguide.service.TourGuideService;
 import com.openclassrooms.tourguide.user.User;
@@ -32,6 +42,9 @@ public class TestTourGuideService {
 	@Autowired
 	private TourGuideService tourGuideService;
 
+	@Autowired
+	private MeterRegistry meterRegistry;
+
 	/**
 	 * S'exécute AVANT chaque test de cette classe.
 	 * La responsabilité principale de cette méthode est de garantir un environnement de test propre et isolé.
@@ -72,6 +85,20 @@ public class TestTourGuideService {
 		assertEquals(user2, retrievedUser2);
 	}
 
+	@Test
+	public void getUserById() {
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		User duplicateName = new User(UUID.randomUUID(), "jon", "111", "other@tourGuide.com");
+
+		tourGuideService.addUser(user);
+		// Un second utilisateur de même nom est ignoré
+		tourGuideService.addUser(duplicateName);
+
+		assertEquals(user, tourGuideService.getUser(user.getUserId()));
+		assertEquals(user, tourGuideService.getUser("jon"));
+		assertEquals(null, tourGuideService.getUser(duplicateName.getUserId()));
+	}
+
 	@Test
 	public void getAllUsers() {
 		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
@@ -98,6 +125,19 @@ public class TestTourGuideService {
 		assertEquals(1, user.getVisitedLocations().size());
 	}
 
+	@Test
+	public void concurrentTrackingSharesOneLocationFetch() {
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		tourGuideService.addUser(user);
+
+		// GpsUtil répond en 30 ms au moins : le second appel arrive pendant le premier suivi
+		CompletableFuture<VisitedLocation> first = tourGuideService.trackUserLocation(user);
+		CompletableFuture<VisitedLocation> second = tourGuideService.trackUserLocation(user);
+
+		assertSame(first.join(), second.join());
+		assertEquals(1, user.getVisitedLocations().size());
+	}
+
 	@Test
 	public void getNearbyAttractions() {
 		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
@@ -114,6 +154,40 @@ public class TestTourGuideService {
 		assertEquals(5, attractions.size());
 	}
 
+	@Test
+	public void getNearbyAttractionsWithDetailsAsync() {
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		tourGuideService.addUser(user);
+
+		// Sans historique, la position est obtenue par un suivi, sans bloquer l'appelant
+		List<NearbyAttractionDTO> attractions = tourGuideService.getNearbyAttractionsWithDetailsAsync(user).join();
+
+		assertEquals(5, attractions.size());
+		for (int i = 1; i < attractions.size(); i++) {
+			assertTrue(attractions.get(i - 1).distance() <= attractions.get(i).distance());
+		}
+	}
+
+	@Test
+	public void getNearbyAttractionsHonoursCountAndProximity() {
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		tourGuideService.addUser(user);
+		VisitedLocation visitedLocation = tourGuideService.trackUserLocation(user).join();
+
+		// Le nombre demandé remplace les 5 attractions par défaut
+		assertEquals(10, tourGuideService.getNearByAttractions(visitedLocation, 10, Double.POSITIVE_INFINITY).size());
+
+		// Le rayon des préférences exclut les attractions plus éloignées
+		double secondDistance = tourGuideService.getNearbyAttractionsWithDetailsAsync(user).join().get(1).distance();
+		user.getUserPreferences().setAttractionProximity((int) Math.floor(secondDistance));
+		List<NearbyAttractionDTO> attractions = tourGuideService.getNearbyAttractionsWithDetailsAsync(user).join();
+		assertTrue(attractions.size() <= 1);
+		attractions.forEach(a -> assertTrue(a.distance() <= user.getUserPreferences().getAttractionProximity()));
+
+		assertThrows(IllegalArgumentException.class,
+				() -> tourGuideService.getNearByAttractions(visitedLocation, 0, Double.POSITIVE_INFINITY));
+	}
+
 	@Test
 	public void getTripDeals() {
 		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
@@ -124,4 +198,57 @@ public class TestTourGuideService {
 		// L'API TripPricer retourne 5 offres par défaut (même si la javadoc du test dit 10)
 		assertEquals(5, providers.size());
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void getTripDealsIsCachedUntilPreferencesChange() {
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		tourGuideService.addUser(user);
+
+		List<Provider> providers = tourGuideService.getTripDeals(user);
+		long hits = tourGuideService.getTripDealsCacheStats().hits();
+
+		// Mêmes paramètres : les offres viennent du cache
+		assertSame(providers, tourGuideService.getTripDeals(user));
+		assertEquals(hits + 1, tourGuideService.getTripDealsCacheStats().hits());
+
+		// Préférences modifiées : nouvelle demande à TripPricer
+		user.getUserPreferences().setNumberOfAdults(2);
+		assertNotSame(providers, tourGuideService.getTripDeals(user));
+	}
+
+	@Test
+	public void forEachCurrentLocationReadsLastKnownLocations() {
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		User userWithoutLocation = new User(UUID.randomUUID(), "jon2", "000", "jon2@tourGuide.com");
+		tourGuideService.addUser(user);
+		tourGuideService.addUser(userWithoutLocation);
+		Location lastLocation = new Location(33.81, -117.92);
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), new Location(40.0, -100.0), new Date()));
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), lastLocation, new Date()));
+		long fetches = tourGuideService.getLocationFlights().getExecutionCount();
+
+		Map<UUID, Location> locations = new HashMap<>();
+		tourGuideService.forEachCurrentLocation(locations::put);
+
+		// Seule la dernière position connue est lue, sans suivi pour l'utilisateur sans position
+		assertEquals(1, locations.size());
+		assertEquals(lastLocation.latitude, locations.get(user.getUserId()).latitude);
+		assertEquals(lastLocation.longitude, locations.get(user.getUserId()).longitude);
+		assertEquals(fetches, tourGuideService.getLocationFlights().getExecutionCount());
+	}
+
+	@Test
+	public void trackUserLocationIsTimed() {
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		tourGuideService.addUser(user);
+		long tracked = meterRegistry.get("tourguide.location.track").timer().count();
+		long gpsCalls = meterRegistry.get("tourguide.gpsutil.location").timer().count();
+
+		tourGuideService.trackUserLocation(user).join();
+
+		assertEquals(tracked + 1, meterRegistry.get("tourguide.location.track").timer().count());
+		assertEquals(gpsCalls + 1, meterRegistry.get("tourguide.gpsutil.location").timer().count());
+		assertEquals(1.0, meterRegistry.get("tourguide.users").gauge().value());
+		meterRegistry.get("tourguide.executor.queue.depth").tag("bulkhead", "gps").gauge();
+	}
+}
@@ -0,0 +1,234 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.tracker.CycleReport;
+import com.openclassrooms.tourguide.tracker.RoundReport;
+import com.openclassrooms.tourguide.tracker.Tracker;
+import com.openclassrooms.tourguide.tracker.TrackerSettings;
+import com.openclassrooms.tourguide.tracker.TrackingTarget;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserRegistry;
+
+/**
+ * Tests unitaires du Tracker, sur un service simulé : roue de 8 cases de 100 ms.
+ */
+public class TestTracker {
+
+	private static final TrackerSettings SETTINGS = new TrackerSettings(Duration.ofMillis(800), 8,
+			Duration.ofMillis(200), 0.5);
+	private static final long TICK_MILLIS = SETTINGS.tickDuration().toMillis();
+
+	private final StubTarget target = new StubTarget();
+	private Tracker tracker;
+
+	@AfterEach
+	public void tearDown() {
+		if (tracker != null) {
+			tracker.stopTracking();
+		}
+	}
+
+	@Test
+	public void usersAreSpreadAcrossWheelSlots() throws InterruptedException {
+		target.addUsers(800);
+		// Suivis jamais terminés : chaque utilisateur n'est lancé qu'une fois
+		target.tracking = CompletableFuture::new;
+
+		tracker = new Tracker(target, SETTINGS);
+		TimeUnit.MILLISECONDS.sleep(SETTINGS.pollingInterval().toMillis() + 2 * TICK_MILLIS);
+
+		// Les lancements d'un même tick sont groupés, séparés des suivants par la durée d'une case
+		List<Integer> ticks = new ArrayList<>();
+		long previous = 0;
+		for (long launchedAt : target.launches.stream().sorted().toList()) {
+			if (ticks.isEmpty() || launchedAt - previous > TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS / 2)) {
+				ticks.add(0);
+			}
+			ticks.set(ticks.size() - 1, ticks.get(ticks.size() - 1) + 1);
+			previous = launchedAt;
+		}
+		assertEquals(800, target.launches.size());
+		assertEquals(SETTINGS.wheelSlots(), ticks.size());
+		ticks.forEach(count -> assertTrue(count > 50 && count < 150, "Case déséquilibrée : " + ticks));
+	}
+
+	@Test
+	public void userStillInFlightIsNotTrackedAgain() throws InterruptedException {
+		target.addUsers(40);
+		target.tracking = CompletableFuture::new;
+
+		tracker = new Tracker(target, SETTINGS);
+		TimeUnit.MILLISECONDS.sleep(2 * SETTINGS.pollingInterval().toMillis() + TICK_MILLIS);
+
+		assertEquals(40, target.calls.size());
+		target.calls.values().forEach(calls -> assertEquals(1, calls.get()));
+	}
+
+	@Test
+	public void tickWaitsUntilItsDeadlineAndReportsOverrun() throws InterruptedException {
+		target.addUsers(80);
+		// Suivis plus longs qu'une case
+		target.tracking = () -> delayed(3 * TICK_MILLIS);
+
+		tracker = new Tracker(target, SETTINGS);
+		TimeUnit.MILLISECONDS.sleep(SETTINGS.pollingInterval().toMillis() / 2);
+
+		CycleReport report = tracker.getLastCycleReport();
+		assertNotNull(report);
+		assertTrue(report.users() > 0);
+		assertEquals(report.users(), report.overrun());
+		assertEquals(0, report.completed());
+		// L'attente s'arrête à l'échéance du tick, pas à la fin des suivis
+		assertTrue(report.elapsedMillis() >= TICK_MILLIS - 10 && report.elapsedMillis() < 2 * TICK_MILLIS,
+				"Durée du tick : " + report.elapsedMillis());
+	}
+
+	@Test
+	public void cycleTimeCoversTrackingCompletion() throws InterruptedException {
+		target.addUsers(80);
+		target.tracking = () -> delayed(40);
+
+		tracker = new Tracker(target, SETTINGS);
+		TimeUnit.MILLISECONDS.sleep(SETTINGS.pollingInterval().toMillis() / 2);
+
+		CycleReport report = tracker.getLastCycleReport();
+		assertNotNull(report);
+		assertTrue(report.users() > 0);
+		assertEquals(report.users(), report.completed());
+		assertEquals(0, report.overrun());
+		// Durée mesurée jusqu'à la dernière complétion, pas seulement jusqu'au lancement
+		assertTrue(report.elapsedMillis() >= 40 && report.elapsedMillis() < TICK_MILLIS,
+				"Durée du tick : " + report.elapsedMillis());
+		assertEquals(0, tracker.getCycleLagMillis());
+	}
+
+	@Test
+	public void userAddedMidRoundIsScheduledInItsSlot() throws InterruptedException {
+		tracker = new Tracker(target, SETTINGS);
+		TimeUnit.MILLISECONDS.sleep(TICK_MILLIS + TICK_MILLIS / 2);
+
+		List<User> added = target.addUsers(40);
+		added.forEach(tracker::schedule);
+		// Sans attendre le tour suivant, chaque utilisateur est suivi au plus tard au prochain passage sur sa case
+		TimeUnit.MILLISECONDS.sleep(SETTINGS.pollingInterval().toMillis() + 3 * TICK_MILLIS);
+
+		added.forEach(user -> assertTrue(target.calls.containsKey(user.getUserId()),
+				"Utilisateur non suivi : " + user.getUserName()));
+	}
+
+	@Test
+	public void roundReportCoversTheWholeWheel() throws InterruptedException {
+		target.addUsers(80);
+		target.tracking = () -> delayed(20);
+
+		tracker = new Tracker(target, SETTINGS);
+		TimeUnit.MILLISECONDS.sleep(SETTINGS.pollingInterval().toMillis() + 3 * TICK_MILLIS);
+
+		RoundReport report = tracker.getLastRoundReport();
+		assertNotNull(report);
+		assertEquals(0, report.round());
+		assertEquals(80, report.users());
+		assertEquals(0, report.late());
+		// Du début de la première case à la dernière complétion de la dernière case
+		long lastSlotStart = (SETTINGS.wheelSlots() - 1) * TICK_MILLIS;
+		assertTrue(report.elapsedMillis() >= lastSlotStart + 20
+				&& report.elapsedMillis() < SETTINGS.pollingInterval().toMillis() + TICK_MILLIS,
+				"Durée du tour : " + report.elapsedMillis());
+	}
+
+	@Test
+	public void roundReportCountsLateUsers() throws InterruptedException {
+		target.addUsers(80);
+		target.tracking = () -> delayed(3 * TICK_MILLIS);
+
+		tracker = new Tracker(target, SETTINGS);
+		// Chaque case attend son échéance complète : le tour dure au moins pollingInterval
+		TimeUnit.MILLISECONDS.sleep(SETTINGS.pollingInterval().toMillis() + 3 * TICK_MILLIS);
+
+		RoundReport report = tracker.getLastRoundReport();
+		assertNotNull(report);
+		assertEquals(80, report.users());
+		assertEquals(80, report.late());
+		assertTrue(report.elapsedMillis() >= SETTINGS.pollingInterval().toMillis() - 10,
+				"Durée du tour : " + report.elapsedMillis());
+	}
+
+	@Test
+	public void movingUserIsTrackedMoreOften() throws InterruptedException {
+		User moving = target.addUsers(1).get(0);
+		User still = target.addUsers(1).get(0);
+		target.moving.add(moving.getUserId());
+
+		tracker = new Tracker(target, SETTINGS);
+		TimeUnit.MILLISECONDS.sleep(3 * SETTINGS.pollingInterval().toMillis());
+
+		// Environ 12 suivis toutes les 200 ms, 3 toutes les 800 ms
+		int movingCalls = target.calls.get(moving.getUserId()).get();
+		int stillCalls = target.calls.get(still.getUserId()).get();
+		assertTrue(movingCalls >= 8, "Suivis de l'utilisateur en mouvement : " + movingCalls);
+		assertTrue(stillCalls >= 2 && stillCalls <= 4, "Suivis de l'utilisateur immobile : " + stillCalls);
+	}
+
+	private static CompletableFuture<?> delayed(long millis) {
+		return CompletableFuture.runAsync(() -> {
+		}, CompletableFuture.delayedExecutor(millis, TimeUnit.MILLISECONDS));
+	}
+
+	/**
+	 * Service simulé : enregistre les suivis lancés et répond selon {@code tracking}.
+	 */
+	private static class StubTarget implements TrackingTarget {
+		private final UserRegistry registry = new UserRegistry();
+		private final Map<UUID, AtomicInteger> calls = new ConcurrentHashMap<>();
+		private final Queue<Long> launches = new ConcurrentLinkedQueue<>();
+		private final Set<UUID> moving = ConcurrentHashMap.newKeySet();
+		private volatile Supplier<CompletableFuture<?>> tracking = () -> CompletableFuture.completedFuture(null);
+
+		List<User> addUsers(int count) {
+			List<User> users = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				User user = new User(UUID.randomUUID(), "user" + UUID.randomUUID(), "000", "user@tourGuide.com");
+				registry.add(user);
+				users.add(user);
+			}
+			return users;
+		}
+
+		@Override
+		public UserRegistry getUserRegistry() {
+			return registry;
+		}
+
+		@Override
+		public CompletableFuture<?> updateUserLocation(User user) {
+			launches.add(System.nanoTime());
+			calls.computeIfAbsent(user.getUserId(), id -> new AtomicInteger()).incrementAndGet();
+			return tracking.get();
+		}
+
+		@Override
+		public boolean hasMovedRecently(User user, double thresholdMiles) {
+			return moving.contains(user.getUserId());
+		}
+	}
+}
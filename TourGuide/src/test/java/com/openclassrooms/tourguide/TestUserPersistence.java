@@ -0,0 +1,158 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.persistence.FileUserRepository;
+import com.openclassrooms.tourguide.persistence.UserPersistence;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserRegistry;
+import com.openclassrooms.tourguide.user.UserReward;
+
+/**
+ * Tests unitaires de l'écriture différée des utilisateurs dans le stockage fichier.
+ */
+public class TestUserPersistence {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void loggedChangesAreReloadedAfterCrash() throws IOException {
+		UserRegistry registry = new UserRegistry();
+		UserPersistence persistence = start(registry);
+		User user = register(registry, persistence);
+		user.addToVisitedLocations(visit(user, 33.81, -117.92));
+		user.addToVisitedLocations(visit(user, 40.0, -100.0));
+		Attraction attraction = new Attraction("Disneyland", "Anaheim", "CA", 33.81, -117.92);
+		user.addUserReward(new UserReward(user.getLastVisitedLocation(), attraction, 42));
+
+		persistence.flush().join();
+
+		// Pas de fermeture : seul le journal contient les modifications
+		User reloaded = reload().get(0);
+		assertEquals(user.getUserId(), reloaded.getUserId());
+		assertEquals(2, reloaded.getVisitedLocations().size());
+		assertEquals(40.0, reloaded.getLastVisitedLocation().location.latitude);
+		assertEquals(42, reloaded.getTotalRewardPoints());
+	}
+
+	@Test
+	public void restartDoesNotReplayLocationsTwice() throws IOException {
+		UserRegistry registry = new UserRegistry();
+		UserPersistence persistence = start(registry);
+		User user = register(registry, persistence);
+		user.addToVisitedLocations(visit(user, 33.81, -117.92));
+		persistence.close();
+
+		// Redémarrage : rechargement, snapshot initial puis nouvelle position journalisée
+		UserRegistry restarted = new UserRegistry();
+		UserPersistence restartedPersistence = new UserPersistence(new FileUserRepository(directory), 100, 10,
+				Duration.ofHours(1));
+		restartedPersistence.loadAll(restarted::add);
+		restartedPersistence.start(restarted);
+		User restored = restarted.getById(user.getUserId());
+		restored.setChangeListener(restartedPersistence);
+		restored.addToVisitedLocations(visit(restored, 40.0, -100.0));
+		restartedPersistence.flush().join();
+
+		assertEquals(2, reload().get(0).getVisitedLocations().size());
+	}
+
+	@Test
+	public void locationWithoutDateIsWrittenAndReloaded() throws IOException {
+		UserRegistry registry = new UserRegistry();
+		UserPersistence persistence = start(registry);
+		User user = register(registry, persistence);
+		VisitedLocation undated = new VisitedLocation(user.getUserId(), new Location(33.81, -117.92), null);
+		user.addToVisitedLocations(undated);
+		Attraction attraction = new Attraction("Disneyland", "Anaheim", "CA", 33.81, -117.92);
+		user.addUserReward(new UserReward(undated, attraction, 42));
+		user.addToVisitedLocations(visit(user, 40.0, -100.0));
+
+		// Rejeu du journal
+		persistence.flush().join();
+		User fromLog = reload().get(0);
+		assertNull(fromLog.getVisitedLocations().get(0).timeVisited);
+		assertNull(fromLog.getUserRewards().get(0).visitedLocation.timeVisited);
+		assertNotNull(fromLog.getLastVisitedLocation().timeVisited);
+
+		// Lecture du snapshot écrit à la fermeture
+		persistence.close();
+		User fromSnapshot = reload().get(0);
+		assertEquals(2, fromSnapshot.getVisitedLocations().size());
+		assertNull(fromSnapshot.getVisitedLocations().get(0).timeVisited);
+		assertEquals(42, fromSnapshot.getTotalRewardPoints());
+	}
+
+	@Test
+	public void truncatedLogTailIsIgnored() throws IOException {
+		UserRegistry registry = new UserRegistry();
+		UserPersistence persistence = start(registry);
+		User user = register(registry, persistence);
+		user.addToVisitedLocations(visit(user, 33.81, -117.92));
+		persistence.flush().join();
+
+		// Écriture interrompue d'un enregistrement de position
+		Files.write(directory.resolve("users.log"), new byte[] { 2, 0, 0, 0 }, StandardOpenOption.APPEND);
+
+		assertEquals(1, reload().get(0).getVisitedLocations().size());
+	}
+
+	@Test
+	public void fullQueueDropsInsteadOfBlocking() throws IOException {
+		UserPersistence persistence = new UserPersistence(new FileUserRepository(directory), 1, 10,
+				Duration.ofHours(1));
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		user.setChangeListener(persistence);
+
+		// Écriture non démarrée : la file d'une place est pleine après le premier ajout
+		user.addToVisitedLocations(visit(user, 33.81, -117.92));
+		user.addToVisitedLocations(visit(user, 40.0, -100.0));
+
+		assertEquals(1, persistence.getPendingCount());
+		assertEquals(1, persistence.getDroppedCount());
+	}
+
+	private UserPersistence start(UserRegistry registry) throws IOException {
+		UserPersistence persistence = new UserPersistence(new FileUserRepository(directory), 100, 10,
+				Duration.ofHours(1));
+		persistence.start(registry);
+		return persistence;
+	}
+
+	private User register(UserRegistry registry, UserPersistence persistence) {
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		registry.add(user);
+		persistence.userAdded(user);
+		user.setChangeListener(persistence);
+		return user;
+	}
+
+	private List<User> reload() throws IOException {
+		List<User> users = new ArrayList<>();
+		new FileUserRepository(directory).loadAll(users::add);
+		return users;
+	}
+
+	private VisitedLocation visit(User user, double latitude, double longitude) {
+		return new VisitedLocation(user.getUserId(), new Location(latitude, longitude), new Date());
+	}
+}
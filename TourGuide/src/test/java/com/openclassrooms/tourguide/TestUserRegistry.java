@@ -0,0 +1,55 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserRegistry;
+
+/**
+ * Tests unitaires du registre partitionné des utilisateurs.
+ */
+public class TestUserRegistry {
+
+	private final UserRegistry registry = new UserRegistry();
+
+	@Test
+	public void userWithExistingIdIsRejected() {
+		UUID userId = UUID.randomUUID();
+		User first = new User(userId, "jon", "000", "jon@tourGuide.com");
+		User sameId = new User(userId, "jon2", "111", "jon2@tourGuide.com");
+
+		assertTrue(registry.add(first));
+		assertFalse(registry.add(sameId));
+
+		// Les deux index désignent toujours le premier utilisateur
+		assertSame(first, registry.getById(userId));
+		assertSame(first, registry.getByName("jon"));
+		assertNull(registry.getByName("jon2"));
+		assertEquals(1, registry.size());
+		assertEquals(1, registry.stream().count());
+	}
+
+	@Test
+	public void clearDuringAddsKeepsBothIndexesConsistent() {
+		CompletableFuture<Void> adds = CompletableFuture.runAsync(() -> IntStream.range(0, 10_000)
+				.forEach(i -> registry.add(new User(UUID.randomUUID(), "user" + i, "000", "user@tourGuide.com"))));
+		while (!adds.isDone()) {
+			registry.clear();
+		}
+		adds.join();
+
+		// Chaque utilisateur restant est présent dans les deux index
+		assertEquals(registry.size(), registry.stream().count());
+		registry.forEach(user -> assertSame(user, registry.getByName(user.getUserName())));
+	}
+}